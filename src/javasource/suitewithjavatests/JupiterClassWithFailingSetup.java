@@ -0,0 +1,23 @@
+package suitewithjavatests;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class JupiterClassWithFailingSetup {
+    // Only fails when asked to, so the tests of this suite pass when it runs as a whole
+    public static volatile boolean failSetup = false;
+
+    @BeforeAll
+    static void setup() {
+        if (failSetup)
+            fail("Setup failed");
+    }
+
+    @Test
+    void testAssertTrue() {
+        assertTrue(true);
+    }
+}
@@ -0,0 +1,79 @@
+package suitewithjavatests;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.Extension;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
+import org.junit.jupiter.api.extension.TestTemplateInvocationContextProvider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JupiterClassWithUnitTests {
+    @Test
+    void testAssertTrue() {
+        assertTrue(true);
+    }
+
+    @RepeatedTest(3)
+    void repeatedTest() {
+        assertTrue(true);
+    }
+
+    // Runs once per value, the way @ParameterizedTest does, without depending on junit-jupiter-params
+    @TestTemplate
+    @ExtendWith(ValuesProvider.class)
+    void templateTest(int value) {
+        assertTrue(value > 0);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> dynamicTests() {
+        return IntStream.rangeClosed(1, 3)
+                .mapToObj(value -> DynamicTest.dynamicTest("Value " + value, () -> assertTrue(value > 0)));
+    }
+
+    static class ValuesProvider implements TestTemplateInvocationContextProvider {
+        @Override
+        public boolean supportsTestTemplate(ExtensionContext context) {
+            return true;
+        }
+
+        @Override
+        public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(ExtensionContext context) {
+            return IntStream.rangeClosed(1, 3).mapToObj(ValuesProvider::invocation);
+        }
+
+        private static TestTemplateInvocationContext invocation(int value) {
+            return new TestTemplateInvocationContext() {
+                @Override
+                public List<Extension> getAdditionalExtensions() {
+                    return Collections.singletonList(new ParameterResolver() {
+                        @Override
+                        public boolean supportsParameter(ParameterContext parameterContext,
+                                ExtensionContext extensionContext) {
+                            return parameterContext.getParameter().getType() == int.class;
+                        }
+
+                        @Override
+                        public Object resolveParameter(ParameterContext parameterContext,
+                                ExtensionContext extensionContext) {
+                            return value;
+                        }
+                    });
+                }
+            };
+        }
+    }
+}
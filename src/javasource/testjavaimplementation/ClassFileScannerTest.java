@@ -0,0 +1,62 @@
+package testjavaimplementation;
+
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import suitewithjavatests.ClassWithUnitTests;
+import suitewithjavatests.ClassWithoutUnitTests;
+import unittesting.AbstractUnitTest;
+import unittesting.ClassFileScanner;
+import unittesting.ClassFileScanner.ClassInfo;
+import unittesting.JUnitExample2;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+public class ClassFileScannerTest {
+    private static ClassInfo scan(Class<?> clazz) throws IOException {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+
+        try (InputStream in = clazz.getClassLoader().getResourceAsStream(resource)) {
+            return ClassFileScanner.scan(in, ClassFileScanner.JUNIT_TEST_ANNOTATION);
+        }
+    }
+
+    @Test
+    public void scanShouldReadClassAndSuperClassName() throws IOException {
+        ClassInfo classInfo = scan(JUnitExample2.class);
+
+        assertEquals(JUnitExample2.class.getName(), classInfo.getClassName());
+        assertEquals(AbstractUnitTest.class.getName(), classInfo.getSuperClassName());
+    }
+
+    @Test
+    public void scanShouldFindTestMethod() throws IOException {
+        assertTrue(scan(ClassWithUnitTests.class).getAnnotatedMethods().contains("testAssertTrue"));
+    }
+
+    @Test
+    public void scanShouldNotFindNonTestMethod() throws IOException {
+        assertFalse(scan(ClassWithUnitTests.class).getAnnotatedMethods().contains("nonTestMethod"));
+    }
+
+    @Test
+    public void scanShouldFindNoTestMethodsInClassWithoutUnitTests() throws IOException {
+        assertTrue(scan(ClassWithoutUnitTests.class).getAnnotatedMethods().isEmpty());
+    }
+
+    @Test
+    public void scanShouldRecognizeInstantiableClass() throws IOException {
+        assertTrue(scan(ClassWithUnitTests.class).isInstantiable());
+        assertFalse(scan(TestRule.class).isInstantiable());
+    }
+
+    @Test
+    public void scanShouldCollectReferencedClasses() throws IOException {
+        ClassInfo classInfo = scan(JUnitExample2.class);
+
+        assertTrue(classInfo.getReferencedClasses().contains(AbstractUnitTest.class.getName()));
+        assertFalse(classInfo.getReferencedClasses().contains(JUnitExample2.class.getName()));
+    }
+}
@@ -0,0 +1,177 @@
+package testjavaimplementation;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.systemwideinterfaces.core.IContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import suitewithjavatests.ClassWithUnitTests;
+import suitewithjavatests.ClassWithoutUnitTests;
+import suitewithjavatests.JupiterClassWithFailingSetup;
+import suitewithjavatests.JupiterClassWithUnitTests;
+import unittesting.JUnit4TestEngine;
+import unittesting.JUnitPlatformTestEngine;
+import unittesting.JavaTestEngines;
+import unittesting.UnitTestIndex;
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JUnitPlatformTestEngineTest {
+    private static final String TEST_CLASS = JupiterClassWithUnitTests.class.getName();
+
+    private final IContext context = Core.createSystemContext();
+    private final JUnitPlatformTestEngine engine = new JUnitPlatformTestEngine();
+
+    private TestSuite testSuite;
+
+    @Before
+    public void setup() throws CoreException {
+        testSuite = new TestSuite(context);
+        testSuite.setModule("TestModule1");
+        testSuite.commit();
+    }
+
+    @After
+    public void tearDown() {
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(UnitTest::delete);
+        testSuite.delete();
+    }
+
+    // The listener tracks the Jupiter tests on the running thread, which should not be the one of this test
+    private void runInNewThread(Runnable runnable) throws InterruptedException {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        thread.join();
+    }
+
+    private void run(Class<?>... testClasses) throws InterruptedException {
+        runInNewThread(() -> engine.run(context, testSuite, UnitTestIndex.load(context, testSuite), testClasses));
+    }
+
+    private UnitTest getUnitTest(String name) {
+        return UnitTestIndex.load(context, testSuite).find(name, false).get();
+    }
+
+    // Maps the parallelism setting to a class loader that only provides the given junit-platform.properties
+    private Map<String, String> getParallelConfiguration(String platformProperties) throws IOException {
+        Path folder = Files.createTempDirectory("junit-platform");
+        File propertiesFile = folder.resolve("junit-platform.properties").toFile();
+        Files.write(propertiesFile.toPath(), platformProperties.getBytes(StandardCharsets.UTF_8));
+
+        System.setProperty("unittesting.junitParallelism", "4");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { folder.toUri().toURL() }, null)) {
+            return JUnitPlatformTestEngine.getParallelConfiguration(classLoader);
+        } finally {
+            System.clearProperty("unittesting.junitParallelism");
+            propertiesFile.delete();
+            folder.toFile().delete();
+        }
+    }
+
+    private Set<String> getUnitTestNames() {
+        Set<String> names = new HashSet<>();
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(unitTest -> names.add(unitTest.getName()));
+        return names;
+    }
+
+    @Test
+    public void forClassShouldSelectJupiterEngineForJupiterTests() {
+        assertTrue(JavaTestEngines.forClass(JupiterClassWithUnitTests.class).get() instanceof JUnitPlatformTestEngine);
+    }
+
+    @Test
+    public void forClassShouldSelectJUnit4EngineForJUnit4Tests() {
+        assertTrue(JavaTestEngines.forClass(ClassWithUnitTests.class).get() instanceof JUnit4TestEngine);
+    }
+
+    @Test
+    public void forClassShouldNotSelectEngineForClassWithoutTests() {
+        assertFalse(JavaTestEngines.forClass(ClassWithoutUnitTests.class).isPresent());
+    }
+
+    @Test
+    public void runShouldReportEveryTestMethodOnce() throws InterruptedException {
+        run(JupiterClassWithUnitTests.class);
+
+        Set<String> expected = new HashSet<>();
+        for (String method : new String[] { "testAssertTrue", "repeatedTest", "templateTest", "dynamicTests" })
+            expected.add(TEST_CLASS + "/" + method);
+
+        assertEquals(expected, getUnitTestNames());
+    }
+
+    @Test
+    public void runShouldReportRepeatedTemplateAndDynamicTestsAsPassed() throws InterruptedException {
+        run(JupiterClassWithUnitTests.class);
+
+        assertEquals(ENUM_UnitTestResult._3_Success, getUnitTest(TEST_CLASS + "/repeatedTest").getResult());
+        assertEquals(ENUM_UnitTestResult._3_Success, getUnitTest(TEST_CLASS + "/templateTest").getResult());
+        assertEquals(ENUM_UnitTestResult._3_Success, getUnitTest(TEST_CLASS + "/dynamicTests").getResult());
+    }
+
+    @Test
+    public void runShouldCountResultsOnTestSuite() throws InterruptedException {
+        run(JupiterClassWithUnitTests.class);
+
+        assertEquals(4, (long) testSuite.getTestPassedCount());
+        assertEquals(0, (long) testSuite.getTestFailedCount());
+    }
+
+    @Test
+    public void runShouldFailTestsOfClassWithFailingBeforeAll() throws InterruptedException {
+        JupiterClassWithFailingSetup.failSetup = true;
+        try {
+            run(JupiterClassWithFailingSetup.class);
+        } finally {
+            JupiterClassWithFailingSetup.failSetup = false;
+        }
+
+        UnitTest unitTest = getUnitTest(JupiterClassWithFailingSetup.class.getName() + "/testAssertTrue");
+        assertEquals(ENUM_UnitTestResult._2_Failed, unitTest.getResult());
+        assertTrue(unitTest.getResultMessage().contains("Setup failed"));
+    }
+
+    @Test
+    public void runShouldOnlyRunSelectedTestMethods() throws InterruptedException {
+        Map<Class<?>, Set<String>> testMethods = Collections.singletonMap(JupiterClassWithUnitTests.class,
+                Collections.singleton("repeatedTest"));
+        runInNewThread(() -> engine.run(context, testSuite, UnitTestIndex.load(context, testSuite), testMethods));
+
+        assertEquals(Collections.singleton(TEST_CLASS + "/repeatedTest"), getUnitTestNames());
+    }
+
+    @Test
+    public void parallelismShouldApplyWhenPlatformPropertiesDoNotConfigureParallelExecution() throws IOException {
+        Map<String, String> configuration = getParallelConfiguration("junit.jupiter.displayname.generator.default="
+                + "org.junit.jupiter.api.DisplayNameGenerator$Simple\n");
+
+        assertEquals("true", configuration.get("junit.jupiter.execution.parallel.enabled"));
+        assertEquals("4", configuration.get("junit.jupiter.execution.parallel.config.fixed.parallelism"));
+    }
+
+    @Test
+    public void platformPropertiesShouldOverrideParallelismWhenTheyConfigureParallelExecution() throws IOException {
+        Map<String, String> configuration = getParallelConfiguration(
+                "junit.jupiter.execution.parallel.enabled=false\n");
+
+        assertTrue(configuration.isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package testjavaimplementation;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.systemwideinterfaces.core.IContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import suitewithjavatests.ClassWithUnitTests;
+import unittesting.JUnitResultCache;
+import unittesting.UnitTestIndex;
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JUnitResultCacheTest {
+    private static final String TEST_CLASS = ClassWithUnitTests.class.getName();
+    private static final String TEST_NAME = TEST_CLASS + "/testAssertTrue";
+    private static final Class<?>[] TEST_CLASSES = { ClassWithUnitTests.class };
+
+    private final IContext context = Core.createSystemContext();
+    private final Map<String, Long> testClassCrcs = new HashMap<>();
+    private final AtomicReference<String> modelFingerprint = new AtomicReference<>("model-1");
+
+    private File cacheFile;
+    private TestSuite testSuite;
+
+    @Before
+    public void setup() throws CoreException, IOException {
+        cacheFile = File.createTempFile("junit-results", ".properties");
+        cacheFile.delete();
+        testClassCrcs.put(TEST_CLASS, 1L);
+
+        // The test methods of the skipped classes come from the test index of the module
+        testSuite = new TestSuite(context);
+        testSuite.setModule("SuiteWithJavaTests");
+        testSuite.setTestPassedCount(0L);
+        testSuite.commit();
+    }
+
+    @After
+    public void tearDown() {
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(UnitTest::delete);
+        testSuite.delete();
+        cacheFile.delete();
+    }
+
+    private JUnitResultCache createCache() {
+        return new JUnitResultCache(cacheFile, className -> testClassCrcs.getOrDefault(className, 0L),
+                modelFingerprint::get);
+    }
+
+    private UnitTestIndex createResult(ENUM_UnitTestResult result) throws CoreException {
+        UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
+        UnitTest unitTest = unitTests.get(TEST_NAME, false);
+        unitTest.setResult(result);
+        unitTest.commit();
+        return unitTests;
+    }
+
+    @Test
+    public void recordResultsShouldRememberPassedClass() throws CoreException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+
+        assertTrue(cache.isUnchangedSincePass(TEST_CLASS));
+        assertTrue(cacheFile.isFile());
+    }
+
+    @Test
+    public void recordResultsShouldForgetFailedClass() throws CoreException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+        cache.recordResults(createResult(ENUM_UnitTestResult._2_Failed), TEST_CLASSES);
+
+        assertFalse(cache.isUnchangedSincePass(TEST_CLASS));
+    }
+
+    @Test
+    public void recordedResultsShouldSurviveRestart() throws CoreException {
+        createCache().recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+
+        assertTrue(createCache().isUnchangedSincePass(TEST_CLASS));
+    }
+
+    @Test
+    public void changedClassShouldNotBeUnchangedSincePass() throws CoreException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+        testClassCrcs.put(TEST_CLASS, 2L);
+
+        assertFalse(cache.isUnchangedSincePass(TEST_CLASS));
+    }
+
+    @Test
+    public void changedModelShouldInvalidateRecordedResults() throws CoreException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+        modelFingerprint.set("model-2");
+
+        assertFalse(cache.isUnchangedSincePass(TEST_CLASS));
+    }
+
+    @Test
+    public void forgetShouldDropRecordedResult() throws CoreException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+        cache.forget(Collections.singleton(ClassWithUnitTests.class));
+
+        assertFalse(cache.isUnchangedSincePass(TEST_CLASS));
+        assertFalse(createCache().isUnchangedSincePass(TEST_CLASS));
+    }
+
+    @Test
+    public void skipUnchangedClassesShouldReportCachedTestsAsPassed() throws CoreException, IOException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+
+        UnitTestIndex unitTests = createResult(ENUM_UnitTestResult._1_Running);
+        Class<?>[] classesToRun = cache.skipUnchangedClasses(context, testSuite, unitTests, TEST_CLASSES, false);
+
+        assertEquals(0, classesToRun.length);
+        assertEquals(ENUM_UnitTestResult._3_Success,
+                UnitTestIndex.load(context, testSuite).find(TEST_NAME, false).get().getResult());
+        assertEquals(1, (long) testSuite.getTestPassedCount());
+    }
+
+    @Test
+    public void skipUnchangedClassesShouldRunChangedClasses() throws CoreException, IOException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+        modelFingerprint.set("model-2");
+
+        UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
+        assertArrayEquals(TEST_CLASSES, cache.skipUnchangedClasses(context, testSuite, unitTests, TEST_CLASSES, false));
+        assertEquals(0, (long) testSuite.getTestPassedCount());
+    }
+
+    @Test
+    public void skipUnchangedClassesShouldRunAllClassesWhenForced() throws CoreException, IOException {
+        JUnitResultCache cache = createCache();
+        cache.recordResults(createResult(ENUM_UnitTestResult._3_Success), TEST_CLASSES);
+
+        UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
+        assertArrayEquals(TEST_CLASSES, cache.skipUnchangedClasses(context, testSuite, unitTests, TEST_CLASSES, true));
+        assertEquals(0, (long) testSuite.getTestPassedCount());
+    }
+}
@@ -0,0 +1,116 @@
+package testjavaimplementation;
+
+import org.junit.Test;
+import org.junit.runner.Description;
+import unittesting.JUnitTestTracker;
+import unittesting.JUnitTestTracker.Tracking;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class JUnitTestTrackerTest {
+    private static Description describe(String methodName) {
+        return Description.createTestDescription(JUnitTestTrackerTest.class, methodName);
+    }
+
+    // Keeps the trackings of these tests off the thread that this test itself is tracked on
+    private static void runInNewThread(Runnable runnable) throws InterruptedException {
+        Thread thread = new Thread(runnable);
+        thread.start();
+        thread.join();
+    }
+
+    @Test
+    public void stepShouldBeReadableThroughDescription() throws InterruptedException {
+        Description description = describe("first");
+        runInNewThread(() -> JUnitTestTracker.start(description).reportStep("Step 1"));
+
+        assertEquals("Step 1", JUnitTestTracker.get(description).get().getLastStep());
+        assertTrue(JUnitTestTracker.finish(description).isPresent());
+        assertFalse(JUnitTestTracker.get(description).isPresent());
+    }
+
+    @Test
+    public void trackingsOfParallelTestsShouldBeSeparate() throws InterruptedException {
+        Description description = describe("main");
+        Description otherDescription = describe("other");
+        AtomicReference<Tracking> tracking = new AtomicReference<>();
+        AtomicReference<Tracking> otherTracking = new AtomicReference<>();
+
+        runInNewThread(() -> {
+            tracking.set(JUnitTestTracker.start(description));
+            try {
+                runInNewThread(() -> {
+                    otherTracking.set(JUnitTestTracker.start(otherDescription));
+                    JUnitTestTracker.current().get().reportStep("Other step");
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            JUnitTestTracker.current().get().reportStep("Main step");
+        });
+
+        assertEquals("Main step", tracking.get().getLastStep());
+        assertEquals("Other step", otherTracking.get().getLastStep());
+
+        JUnitTestTracker.finish(description);
+        JUnitTestTracker.finish(otherDescription);
+    }
+
+    @Test
+    public void inheritedTrackingShouldBeClearedWhenTestFinishes() throws InterruptedException {
+        Description description = describe("inherited");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Optional<Tracking>> inheritedBefore = new AtomicReference<>();
+        AtomicReference<Optional<Tracking>> inheritedAfter = new AtomicReference<>();
+
+        runInNewThread(() -> {
+            JUnitTestTracker.start(description);
+
+            // Outlives the test, like a pooled thread created while it runs
+            Thread child = new Thread(() -> {
+                inheritedBefore.set(JUnitTestTracker.current());
+                started.countDown();
+                try {
+                    finished.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inheritedAfter.set(JUnitTestTracker.current());
+            });
+            child.start();
+
+            try {
+                started.await();
+                JUnitTestTracker.finish(description);
+                finished.countDown();
+                child.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(inheritedBefore.get().isPresent());
+        assertFalse(inheritedAfter.get().isPresent());
+    }
+
+    @Test
+    public void runTimeShouldUseMeasuredTime() throws InterruptedException {
+        Description description = describe("measured");
+        AtomicReference<Tracking> tracking = new AtomicReference<>();
+
+        runInNewThread(() -> {
+            tracking.set(JUnitTestTracker.start(description));
+            tracking.get().startTimeMeasure();
+            tracking.get().endTimeMeasure();
+        });
+        Thread.sleep(5);
+
+        assertTrue(tracking.get().getRunTime() < 5_000_000L);
+        JUnitTestTracker.finish(description);
+    }
+}
@@ -0,0 +1,126 @@
+package testjavaimplementation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import suitewithjavatests.ClassWithUnitTests;
+import suitewithjavatests.ClassWithoutUnitTests;
+import suitewithjavatests.JupiterClassWithUnitTests;
+import unittesting.JavaTestIndex;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JavaTestIndexTest {
+    private static final String MODULE = "SuiteWithJavaTests";
+    private static final String TEST_CLASS = ClassWithUnitTests.class.getName();
+
+    private File projectJar;
+    private File indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        projectJar = File.createTempFile("project", ".jar");
+        indexFile = File.createTempFile("testindex", ".bin");
+        writeJar(projectJar, ClassWithUnitTests.class, ClassWithoutUnitTests.class);
+    }
+
+    @After
+    public void tearDown() {
+        projectJar.delete();
+        indexFile.delete();
+    }
+
+    // Writes a jar with the class files of the given classes, like the project jar of a deployment
+    private static void writeJar(File jar, Class<?>... classes) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> testClass : classes) {
+                String classFile = testClass.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new ZipEntry(classFile));
+
+                try (InputStream in = testClass.getClassLoader().getResourceAsStream(classFile)) {
+                    byte[] buffer = new byte[8192];
+                    for (int length = in.read(buffer); length > 0; length = in.read(buffer))
+                        out.write(buffer, 0, length);
+                }
+
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Test
+    public void buildShouldIndexTestMethodsPerModule() throws IOException {
+        JavaTestIndex index = JavaTestIndex.build(projectJar);
+
+        assertEquals(Collections.singletonMap(TEST_CLASS, Collections.singletonList("testAssertTrue")),
+                index.getTestClasses(MODULE));
+        assertTrue(index.getTestClasses("TestModule1").isEmpty());
+    }
+
+    @Test
+    public void buildShouldComputeCrcsOfModulesAndTestClasses() throws IOException {
+        JavaTestIndex index = JavaTestIndex.build(projectJar);
+
+        assertNotEquals(0L, index.getPackageCrc(MODULE));
+        assertEquals(0L, index.getPackageCrc("TestModule1"));
+        assertNotEquals(0L, index.getTestClassCrc(TEST_CLASS));
+        assertEquals(0L, index.getTestClassCrc(ClassWithoutUnitTests.class.getName()));
+    }
+
+    @Test
+    public void addedClassShouldOnlyChangeCrcOfModule() throws IOException {
+        JavaTestIndex index = JavaTestIndex.build(projectJar);
+        writeJar(projectJar, ClassWithUnitTests.class, ClassWithoutUnitTests.class, JupiterClassWithUnitTests.class);
+        JavaTestIndex changedIndex = JavaTestIndex.build(projectJar);
+
+        assertNotEquals(index.getPackageCrc(MODULE), changedIndex.getPackageCrc(MODULE));
+        assertEquals(index.getTestClassCrc(TEST_CLASS), changedIndex.getTestClassCrc(TEST_CLASS));
+    }
+
+    @Test
+    public void readShouldReturnWrittenIndex() throws IOException {
+        JavaTestIndex index = JavaTestIndex.build(projectJar);
+        index.write(indexFile);
+        JavaTestIndex readIndex = JavaTestIndex.read(indexFile);
+
+        assertEquals(index.getTestClasses(MODULE), readIndex.getTestClasses(MODULE));
+        assertEquals(index.getPackageCrc(MODULE), readIndex.getPackageCrc(MODULE));
+        assertEquals(index.getTestClassCrc(TEST_CLASS), readIndex.getTestClassCrc(TEST_CLASS));
+        assertTrue(readIndex.getFingerprint().isUnchanged(projectJar));
+        assertTrue(readIndex.hasCurrentTestAnnotations());
+    }
+
+    @Test
+    public void readShouldRejectOtherFileFormatVersion() throws IOException {
+        JavaTestIndex.build(projectJar).write(indexFile);
+        List<Integer> otherVersions = Arrays.asList(3, 5);
+
+        for (int version : otherVersions) {
+            // Overwrite the version that starts the file
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(indexFile))) {
+                out.writeInt(version);
+            }
+
+            try {
+                JavaTestIndex.read(indexFile);
+                fail("Index file with format version " + version + " should be rejected");
+            } catch (IOException e) {
+                assertEquals("Unsupported test index file format", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package testjavaimplementation;
+
+import org.junit.Test;
+import unittesting.MicroflowIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MicroflowIndexTest {
+    private final MicroflowIndex index = new MicroflowIndex(1L, new HashSet<>(Arrays.asList(
+            "TestModule1.Test_Second", "TestModule1.Test_First", "TestModule1.UT_Third", "TestModule1.Setup",
+            "TestModule2.Test_Other")));
+
+    @Test
+    public void getModulesShouldReturnEveryModuleWithMicroflows() {
+        assertEquals(new HashSet<>(Arrays.asList("TestModule1", "TestModule2")), index.getModules());
+    }
+
+    @Test
+    public void getMicroflowsShouldGroupMicroflowsPerModuleIgnoringCase() {
+        List<String> expected = Arrays.asList("TestModule1.Setup", "TestModule1.Test_First", "TestModule1.Test_Second",
+                "TestModule1.UT_Third");
+
+        assertEquals(expected, Arrays.asList(index.getMicroflows("testmodule1").toArray()));
+        assertEquals(Collections.singletonList("TestModule2.Test_Other"),
+                Arrays.asList(index.getMicroflows("TestModule2").toArray()));
+        assertTrue(index.getMicroflows("UnknownModule").isEmpty());
+    }
+
+    @Test
+    public void findByPrefixShouldMatchPrefixesIgnoringCaseSortedOnName() {
+        assertEquals(Arrays.asList("TestModule1.Test_First", "TestModule1.Test_Second", "TestModule1.UT_Third"),
+                index.findByPrefix("TestModule1", "TEST_", "ut_"));
+    }
+
+    @Test
+    public void findByPrefixShouldOnlyMatchMicroflowsOfTheModule() {
+        assertEquals(Collections.singletonList("TestModule2.Test_Other"), index.findByPrefix("TestModule2", "Test"));
+        assertTrue(index.findByPrefix("TestModule3", "Test").isEmpty());
+    }
+
+    @Test
+    public void findByPrefixShouldNotMatchModuleNameOnly() {
+        assertTrue(index.findByPrefix("TestModule1", "Module").isEmpty());
+    }
+
+    @Test
+    public void containsShouldMatchExactName() {
+        assertTrue(index.contains("TestModule1.Setup"));
+        assertFalse(index.contains("testmodule1.setup"));
+    }
+}
@@ -1,6 +1,7 @@
 package testjavaimplementation;
 
 import com.mendix.core.Core;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import unittesting.ModelUpdateSubscriber;
@@ -16,6 +17,13 @@ public class ModelUpdateSubscriberTest {
     public void setup() {
         subscriber = ModelUpdateSubscriber.getInstance();
         subscriber.setRefreshRequired(false);
+        // The logged model updates should not rediscover tests while this suite runs
+        subscriber.setRediscoveryEnabled(false);
+    }
+
+    @After
+    public void tearDown() {
+        subscriber.setRediscoveryEnabled(true);
     }
 
     @Test
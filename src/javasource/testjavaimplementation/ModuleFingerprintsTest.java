@@ -0,0 +1,57 @@
+package testjavaimplementation;
+
+import org.junit.Test;
+import unittesting.ModuleFingerprints;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ModuleFingerprintsTest {
+    private final ModuleFingerprints previous = fingerprints("TestModule1", 1L, "TestModule2", 2L);
+
+    private static ModuleFingerprints fingerprints(Object... moduleFingerprints) {
+        Map<String, Long> fingerprints = new HashMap<>();
+        for (int i = 0; i < moduleFingerprints.length; i += 2)
+            fingerprints.put((String) moduleFingerprints[i], (Long) moduleFingerprints[i + 1]);
+
+        return ModuleFingerprints.of(fingerprints);
+    }
+
+    @Test
+    public void getChangedModulesShouldBeEmptyForSameFingerprints() {
+        assertTrue(fingerprints("TestModule1", 1L, "TestModule2", 2L).getChangedModules(previous).isEmpty());
+    }
+
+    @Test
+    public void getChangedModulesShouldContainAddedModule() {
+        ModuleFingerprints current = fingerprints("TestModule1", 1L, "TestModule2", 2L, "TestModule3", 3L);
+
+        assertEquals(Collections.singleton("TestModule3"), current.getChangedModules(previous));
+    }
+
+    @Test
+    public void getChangedModulesShouldContainRemovedModule() {
+        ModuleFingerprints current = fingerprints("TestModule1", 1L);
+
+        assertEquals(Collections.singleton("TestModule2"), current.getChangedModules(previous));
+    }
+
+    @Test
+    public void getChangedModulesShouldContainChangedModule() {
+        ModuleFingerprints current = fingerprints("TestModule1", 1L, "TestModule2", 4L);
+
+        assertEquals(Collections.singleton("TestModule2"), current.getChangedModules(previous));
+    }
+
+    @Test
+    public void getChangedModulesShouldContainAllModulesAfterEmptyFingerprints() {
+        assertEquals(new HashSet<>(Arrays.asList("TestModule1", "TestModule2")),
+                previous.getChangedModules(ModuleFingerprints.empty()));
+    }
+}
@@ -0,0 +1,157 @@
+package testjavaimplementation;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixIdentifier;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import unittesting.TestActivityWriter;
+import unittesting.TestExecutionContext;
+import unittesting.UnitTestIndex;
+import unittesting.UnitTestResultSink;
+import unittesting.proxies.TestActivity;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestActivityWriterTest {
+    private static final String RESULT_MESSAGE = "All assertions passed";
+
+    private final IContext context = Core.createSystemContext();
+    private final List<Set<String>> commits = new CopyOnWriteArrayList<>();
+    private final CountDownLatch blocking = new CountDownLatch(1);
+    private final CountDownLatch unblocked = new CountDownLatch(1);
+
+    private TestSuite testSuite;
+    private UnitTest blockingTest;
+    private UnitTest goodTest;
+    private UnitTest otherGoodTest;
+    private UnitTest badTest;
+
+    @Before
+    public void setup() throws CoreException {
+        testSuite = new TestSuite(context);
+        testSuite.setModule("TestModule1");
+        testSuite.commit();
+
+        blockingTest = createUnitTest("TestModule1.Test_Blocking");
+        goodTest = createUnitTest("TestModule1.Test_Good");
+        otherGoodTest = createUnitTest("TestModule1.Test_OtherGood");
+        badTest = createUnitTest("TestModule1.Test_Bad");
+    }
+
+    @After
+    public void tearDown() {
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(UnitTest::delete);
+        testSuite.delete();
+    }
+
+    private UnitTest createUnitTest(String name) throws CoreException {
+        UnitTest unitTest = new UnitTest(context);
+        unitTest.setName(name);
+        unitTest.setIsMf(true);
+        unitTest.setResultMessage(RESULT_MESSAGE);
+        unitTest.setUnitTest_TestSuite(testSuite);
+        unitTest.commit();
+        return unitTest;
+    }
+
+    private static TestExecutionContext createExecutionContext() {
+        TestExecutionContext executionContext = new TestExecutionContext();
+        executionContext.collectStep("Step 1");
+        return executionContext;
+    }
+
+    // Records the tests of every commit, blocks on the blocking test and fails on the bad test
+    private void commit(IContext commitContext, List<IMendixObject> activities) {
+        Set<String> tests = new HashSet<>();
+        for (IMendixObject activity : activities) {
+            IMendixIdentifier testId = activity.getValue(commitContext,
+                    TestActivity.MemberNames.TestActivity_UnitTest.toString());
+            for (UnitTest unitTest : Arrays.asList(blockingTest, goodTest, otherGoodTest, badTest))
+                if (unitTest.getMendixObject().getId().equals(testId))
+                    tests.add(unitTest.getName());
+        }
+        commits.add(tests);
+
+        if (tests.contains(blockingTest.getName())) {
+            blocking.countDown();
+            try {
+                unblocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (tests.contains(badTest.getName()))
+            throw new IllegalStateException("Database unavailable");
+    }
+
+    // Queues the tests while the writer is busy, so they end up in the same batch
+    private void write(int batchSize, UnitTest... unitTests) throws InterruptedException {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context);
+                TestActivityWriter writer = new TestActivityWriter(resultSink, batchSize, this::commit)) {
+            writer.submit(blockingTest, createExecutionContext());
+            blocking.await();
+
+            for (UnitTest unitTest : unitTests)
+                writer.submit(unitTest, createExecutionContext());
+            unblocked.countDown();
+        }
+    }
+
+    private String getResultMessage(UnitTest unitTest) {
+        return UnitTestIndex.load(context, testSuite).find(unitTest.getName(), true).get().getResultMessage();
+    }
+
+    @Test
+    public void activitiesOfQueuedTestsShouldBeCommittedAsOneBatch() throws InterruptedException {
+        write(10, goodTest, otherGoodTest);
+
+        assertEquals(Arrays.asList(
+                Collections.singleton(blockingTest.getName()),
+                new HashSet<>(Arrays.asList(goodTest.getName(), otherGoodTest.getName()))), commits);
+    }
+
+    @Test
+    public void failedBatchShouldBeRetriedTestByTest() throws InterruptedException {
+        write(10, goodTest, badTest);
+
+        assertEquals(Arrays.asList(
+                Collections.singleton(blockingTest.getName()),
+                new HashSet<>(Arrays.asList(goodTest.getName(), badTest.getName())),
+                Collections.singleton(goodTest.getName()),
+                Collections.singleton(badTest.getName())), commits);
+    }
+
+    @Test
+    public void batchesShouldNotExceedBatchSize() throws InterruptedException {
+        write(1, goodTest, otherGoodTest);
+
+        assertEquals(Arrays.asList(
+                Collections.singleton(blockingTest.getName()),
+                Collections.singleton(goodTest.getName()),
+                Collections.singleton(otherGoodTest.getName())), commits);
+    }
+
+    @Test
+    public void failureShouldBeAppendedToResultMessageOfTestWhenClosed() throws InterruptedException {
+        write(10, goodTest, badTest);
+
+        assertEquals(RESULT_MESSAGE + "\nUnable to store test activities: Database unavailable",
+                getResultMessage(badTest));
+        assertEquals(RESULT_MESSAGE, getResultMessage(goodTest));
+    }
+}
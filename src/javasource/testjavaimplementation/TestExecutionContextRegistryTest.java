@@ -0,0 +1,55 @@
+package testjavaimplementation;
+
+import org.junit.After;
+import org.junit.Test;
+import unittesting.TestExecutionContext;
+import unittesting.TestExecutionContextRegistry;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class TestExecutionContextRegistryTest {
+    @After
+    public void tearDown() {
+        TestExecutionContextRegistry.unbind();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void currentShouldFailWhenNothingIsBound() {
+        TestExecutionContextRegistry.current();
+    }
+
+    @Test
+    public void currentShouldReturnContextBoundToThread() {
+        TestExecutionContext executionContext = TestExecutionContextRegistry.bind(new TestExecutionContext());
+
+        assertSame(executionContext, TestExecutionContextRegistry.current());
+    }
+
+    @Test
+    public void currentShouldNotReturnContextBoundToOtherThread() throws InterruptedException {
+        TestExecutionContextRegistry.bind(new TestExecutionContext());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread thread = new Thread(() -> {
+            try {
+                TestExecutionContextRegistry.current();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        thread.start();
+        thread.join();
+
+        assertTrue(failure.get() instanceof IllegalStateException);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void currentShouldFailAfterUnbind() {
+        TestExecutionContextRegistry.bind(new TestExecutionContext());
+        TestExecutionContextRegistry.unbind();
+
+        TestExecutionContextRegistry.current();
+    }
+}
@@ -0,0 +1,116 @@
+package testjavaimplementation;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.systemwideinterfaces.core.IContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import unittesting.UnitTestIndex;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UnitTestIndexTest {
+    private final IContext context = Core.createSystemContext();
+
+    private TestSuite testSuite;
+    private UnitTestIndex unitTests;
+
+    @Before
+    public void setup() throws CoreException {
+        testSuite = new TestSuite(context);
+        testSuite.setModule("TestModule1");
+        testSuite.commit();
+
+        createUnitTest("TestModule1.Test_Kept", true);
+        createUnitTest("TestModule1.Test_Vanished", true);
+        createUnitTest("testmodule1.JavaTest/testKept", false);
+        unitTests = UnitTestIndex.load(context, testSuite);
+    }
+
+    @After
+    public void tearDown() {
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(UnitTest::delete);
+        testSuite.delete();
+    }
+
+    private void createUnitTest(String name, boolean isMf) throws CoreException {
+        UnitTest unitTest = new UnitTest(context);
+        unitTest.setName(name);
+        unitTest.setIsMf(isMf);
+        unitTest.setUnitTest_TestSuite(testSuite);
+        unitTest.commit();
+    }
+
+    private static Set<String> getNames(Collection<UnitTest> unitTests) {
+        Set<String> names = new HashSet<>();
+        unitTests.forEach(unitTest -> names.add(unitTest.getName()));
+        return names;
+    }
+
+    @Test
+    public void syncShouldCreateDiscoveredTestsThatAreMissing() {
+        UnitTestIndex.Changes changes = unitTests.sync(
+                Arrays.asList("TestModule1.Test_Kept", "TestModule1.Test_Vanished", "TestModule1.Test_New"),
+                Arrays.asList("testmodule1.JavaTest/testKept", "testmodule1.JavaTest/testNew"));
+
+        assertEquals(new HashSet<>(Arrays.asList("TestModule1.Test_New", "testmodule1.JavaTest/testNew")),
+                getNames(changes.getNewTests()));
+        assertTrue(changes.getVanishedTests().isEmpty());
+        assertTrue(unitTests.find("TestModule1.Test_New", true).isPresent());
+        assertTrue(unitTests.find("testmodule1.JavaTest/testNew", false).isPresent());
+    }
+
+    @Test
+    public void syncShouldRemoveTestsThatWereNotDiscovered() {
+        UnitTestIndex.Changes changes = unitTests.sync(Collections.singletonList("TestModule1.Test_Kept"),
+                Collections.emptyList());
+
+        assertTrue(changes.getNewTests().isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("TestModule1.Test_Vanished", "testmodule1.JavaTest/testKept")),
+                getNames(changes.getVanishedTests()));
+        assertFalse(unitTests.find("TestModule1.Test_Vanished", true).isPresent());
+        assertFalse(unitTests.find("testmodule1.JavaTest/testKept", false).isPresent());
+    }
+
+    @Test
+    public void syncShouldLeaveUnchangedTestsUntouched() {
+        UnitTest keptTest = unitTests.find("TestModule1.Test_Kept", true).get();
+        UnitTestIndex.Changes changes = unitTests.sync(
+                Arrays.asList("TestModule1.Test_Kept", "TestModule1.Test_Vanished"),
+                Collections.singletonList("testmodule1.JavaTest/testKept"));
+
+        assertTrue(changes.getNewTests().isEmpty());
+        assertTrue(changes.getVanishedTests().isEmpty());
+        assertSame(keptTest, unitTests.find("TestModule1.Test_Kept", true).get());
+    }
+
+    @Test
+    public void syncShouldTellMicroflowAndJavaTestsWithTheSameNameApart() {
+        UnitTestIndex.Changes changes = unitTests.sync(Collections.emptyList(),
+                Collections.singletonList("TestModule1.Test_Kept"));
+
+        assertEquals(Collections.singleton("TestModule1.Test_Kept"), getNames(changes.getNewTests()));
+        assertFalse(changes.getNewTests().get(0).getIsMf());
+        assertTrue(getNames(changes.getVanishedTests()).contains("TestModule1.Test_Kept"));
+    }
+
+    @Test
+    public void syncShouldNotCommitOrDeleteTests() {
+        unitTests.sync(Collections.singletonList("TestModule1.Test_New"), Collections.emptyList());
+
+        assertEquals(new HashSet<>(Arrays.asList("TestModule1.Test_Kept", "TestModule1.Test_Vanished",
+                "testmodule1.JavaTest/testKept")), getNames(UnitTestIndex.load(context, testSuite).getUnitTests()));
+    }
+}
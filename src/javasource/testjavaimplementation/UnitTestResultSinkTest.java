@@ -0,0 +1,149 @@
+package testjavaimplementation;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.systemwideinterfaces.core.IContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import unittesting.UnitTestIndex;
+import unittesting.UnitTestResultSink;
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UnitTestResultSinkTest {
+    // Large enough to never flush on its own while a test runs
+    private static final long FLUSH_INTERVAL = 60_000L;
+
+    private final IContext context = Core.createSystemContext();
+
+    private TestSuite testSuite;
+
+    @Before
+    public void setup() throws CoreException {
+        testSuite = new TestSuite(context);
+        testSuite.setModule("TestModule1");
+        testSuite.commit();
+    }
+
+    @After
+    public void tearDown() {
+        UnitTestIndex.load(context, testSuite).getUnitTests().forEach(UnitTest::delete);
+        testSuite.delete();
+    }
+
+    private UnitTest createUnitTest(String name) {
+        UnitTest unitTest = new UnitTest(context);
+        unitTest.setName(name);
+        unitTest.setIsMf(true);
+        unitTest.setUnitTest_TestSuite(testSuite);
+        return unitTest;
+    }
+
+    private UnitTest createCommittedUnitTest(String name) throws CoreException {
+        UnitTest unitTest = createUnitTest(name);
+        unitTest.commit();
+        return unitTest;
+    }
+
+    private UnitTest getStoredUnitTest(String name) {
+        return UnitTestIndex.load(context, testSuite).find(name, true).get();
+    }
+
+    private static void pass(UnitTest unitTest) {
+        unitTest.setResult(ENUM_UnitTestResult._3_Success);
+        unitTest.setResultMessage("Passed");
+    }
+
+    @Test
+    public void addShouldCommitNewTestRightAway() {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 10, FLUSH_INTERVAL)) {
+            UnitTest unitTest = createUnitTest("TestModule1.Test_New");
+            resultSink.add(unitTest);
+
+            assertFalse(unitTest.getMendixObject().isNew());
+            assertTrue(UnitTestIndex.load(context, testSuite).find("TestModule1.Test_New", true).isPresent());
+        }
+    }
+
+    @Test
+    public void addShouldNotCommitExistingTestBeforeFlush() throws CoreException {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 10, FLUSH_INTERVAL)) {
+            UnitTest unitTest = createCommittedUnitTest("TestModule1.Test_Pending");
+            pass(unitTest);
+            resultSink.add(unitTest);
+
+            assertNull(getStoredUnitTest("TestModule1.Test_Pending").getResult());
+        }
+    }
+
+    @Test
+    public void flushShouldCommitPendingTestsById() throws CoreException {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 10, FLUSH_INTERVAL)) {
+            UnitTest first = createCommittedUnitTest("TestModule1.Test_First");
+            UnitTest second = createCommittedUnitTest("TestModule1.Test_Second");
+            pass(first);
+            pass(second);
+            resultSink.add(first);
+            resultSink.add(second);
+            resultSink.flush();
+
+            assertEquals(ENUM_UnitTestResult._3_Success, getStoredUnitTest("TestModule1.Test_First").getResult());
+            assertEquals(ENUM_UnitTestResult._3_Success, getStoredUnitTest("TestModule1.Test_Second").getResult());
+            assertEquals("Passed", getStoredUnitTest("TestModule1.Test_Second").getResultMessage());
+        }
+    }
+
+    @Test
+    public void flushShouldCommitResultAsItWasWhenAdded() throws CoreException {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 10, FLUSH_INTERVAL)) {
+            UnitTest unitTest = createCommittedUnitTest("TestModule1.Test_Snapshot");
+            pass(unitTest);
+            resultSink.add(unitTest);
+
+            unitTest.setResult(ENUM_UnitTestResult._2_Failed);
+            unitTest.setResultMessage("Changed after it was added");
+            resultSink.flush();
+
+            UnitTest storedTest = getStoredUnitTest("TestModule1.Test_Snapshot");
+            assertEquals(ENUM_UnitTestResult._3_Success, storedTest.getResult());
+            assertEquals("Passed", storedTest.getResultMessage());
+        }
+    }
+
+    @Test
+    public void addShouldFlushWhenBatchIsFull() throws CoreException {
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 2, FLUSH_INTERVAL)) {
+            UnitTest first = createCommittedUnitTest("TestModule1.Test_First");
+            UnitTest second = createCommittedUnitTest("TestModule1.Test_Second");
+            pass(first);
+            pass(second);
+            resultSink.add(first);
+
+            assertNull(getStoredUnitTest("TestModule1.Test_First").getResult());
+
+            resultSink.add(second);
+
+            assertEquals(ENUM_UnitTestResult._3_Success, getStoredUnitTest("TestModule1.Test_First").getResult());
+            assertEquals(ENUM_UnitTestResult._3_Success, getStoredUnitTest("TestModule1.Test_Second").getResult());
+        }
+    }
+
+    @Test
+    public void closeShouldFlushPendingTests() throws CoreException {
+        UnitTest unitTest = createCommittedUnitTest("TestModule1.Test_Closed");
+
+        try (UnitTestResultSink resultSink = new UnitTestResultSink(context, 10, FLUSH_INTERVAL)) {
+            pass(unitTest);
+            resultSink.add(unitTest);
+        }
+
+        assertEquals(ENUM_UnitTestResult._3_Success, getStoredUnitTest("TestModule1.Test_Closed").getResult());
+    }
+}
@@ -1,19 +1,20 @@
 package unittesting;
 
 public class AbstractUnitTest {
-	private static long startTime;
-	private static long endTime;
-
+	/**
+	 * @return the time in milliseconds between {@link #startTimeMeasure()} and
+	 *         {@link #endTimeMeasure()} of the test running on the current thread
+	 */
 	public static long getTestRunTime() {
-		return endTime - startTime;
+		return JUnitTestTracker.current().map(tracking -> tracking.getRunTime() / 1_000_000L).orElse(0L);
 	}
 
 	public void startTimeMeasure() {
-		startTime = System.currentTimeMillis();
+		JUnitTestTracker.current().ifPresent(JUnitTestTracker.Tracking::startTimeMeasure);
 	}
 
 	public void endTimeMeasure() {
-		endTime = System.currentTimeMillis();
+		JUnitTestTracker.current().ifPresent(JUnitTestTracker.Tracking::endTimeMeasure);
 	}
 
 	public void reportStep(String lastStep1) {
@@ -0,0 +1,355 @@
+package unittesting;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads the parts of a class file needed for test discovery (class name,
+ * super class, access flags and the methods annotated with a given
+ * annotation) straight from its bytes, without loading or linking the class.
+ *
+ * See https://docs.oracle.com/javase/specs/jvms/se17/html/jvms-4.html
+ */
+public class ClassFileScanner {
+    public static final String JUNIT_TEST_ANNOTATION = "Lorg/junit/Test;";
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    /**
+     * A non-static method that carries one of the annotations a class was
+     * scanned for.
+     */
+    public static class MethodInfo {
+        private final String name;
+        private final int accessFlags;
+        private final String annotation;
+
+        MethodInfo(String name, int accessFlags, String annotation) {
+            this.name = name;
+            this.accessFlags = accessFlags;
+            this.annotation = annotation;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the descriptor of the annotation, like Lorg/junit/Test;
+         */
+        public String getAnnotation() {
+            return annotation;
+        }
+
+        public boolean isPublic() {
+            return (accessFlags & ACC_PUBLIC) != 0;
+        }
+
+        public boolean isPrivate() {
+            return (accessFlags & ACC_PRIVATE) != 0;
+        }
+    }
+
+    /**
+     * The discovery relevant information of a single class file.
+     */
+    public static class ClassInfo {
+        private final String className;
+        private final String superClassName;
+        private final int accessFlags;
+        private final List<MethodInfo> annotatedMethods;
+        private final List<String> referencedClasses;
+
+        ClassInfo(String className, String superClassName, int accessFlags, List<MethodInfo> annotatedMethods,
+                List<String> referencedClasses) {
+            this.className = className;
+            this.superClassName = superClassName;
+            this.accessFlags = accessFlags;
+            this.annotatedMethods = Collections.unmodifiableList(annotatedMethods);
+            this.referencedClasses = Collections.unmodifiableList(referencedClasses);
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * @return the binary name of the super class, or null for java.lang.Object
+         */
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        public boolean isInstantiable() {
+            return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+        }
+
+        /**
+         * @return names of the public, non-static methods declared in this class
+         *         that carry one of the annotations the class was scanned for
+         */
+        public List<String> getAnnotatedMethods() {
+            List<String> methodNames = new ArrayList<>();
+            for (MethodInfo method : annotatedMethods)
+                if (method.isPublic())
+                    methodNames.add(method.getName());
+
+            return methodNames;
+        }
+
+        /**
+         * @return the non-static methods declared in this class that carry one of
+         *         the annotations the class was scanned for, of any visibility
+         */
+        public List<MethodInfo> getAnnotatedMethodInfos() {
+            return annotatedMethods;
+        }
+
+        /**
+         * @return binary names of the other classes in the constant pool of this
+         *         class, which includes its super class, interfaces and the element
+         *         types of referenced arrays
+         */
+        public List<String> getReferencedClasses() {
+            return referencedClasses;
+        }
+    }
+
+    private ClassFileScanner() {
+    }
+
+    public static ClassInfo scan(byte[] classFile, String... annotationDescriptors) throws IOException {
+        return scan(new ByteArrayInputStream(classFile), annotationDescriptors);
+    }
+
+    public static ClassInfo scan(InputStream classFile, String... annotationDescriptors) throws IOException {
+        DataInputStream in = new DataInputStream(classFile);
+
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a class file");
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        /*
+         * Constant pool; only UTF8 and class entries are kept
+         */
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        int[] classNameIndex = new int[constantPoolCount];
+
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classNameIndex[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    in.skipBytes(2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    in.skipBytes(3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    in.skipBytes(4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    in.skipBytes(8);
+                    i++; // takes two entries
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        /*
+         * Class header
+         */
+        int accessFlags = in.readUnsignedShort();
+        String className = toBinaryName(utf8[classNameIndex[in.readUnsignedShort()]]);
+        int superClass = in.readUnsignedShort();
+        String superClassName = superClass == 0 ? null : toBinaryName(utf8[classNameIndex[superClass]]);
+
+        int interfaceCount = in.readUnsignedShort();
+        in.skipBytes(2 * interfaceCount);
+
+        /*
+         * Fields are skipped, methods are checked for the annotations
+         */
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            in.skipBytes(6);
+            skipAttributes(in);
+        }
+
+        List<MethodInfo> annotatedMethods = new ArrayList<>();
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            int methodAccess = in.readUnsignedShort();
+            String methodName = utf8[in.readUnsignedShort()];
+            in.skipBytes(2); // descriptor
+
+            String annotation = null;
+            int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                String attributeName = utf8[in.readUnsignedShort()];
+                int length = in.readInt();
+
+                if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName)) {
+                    String found = findAnnotation(in, utf8, annotationDescriptors);
+                    if (annotation == null)
+                        annotation = found;
+                } else {
+                    skipFully(in, length);
+                }
+            }
+
+            if (annotation != null && (methodAccess & ACC_STATIC) == 0)
+                annotatedMethods.add(new MethodInfo(methodName, methodAccess, annotation));
+        }
+
+        Set<String> referencedClasses = new TreeSet<>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            String referencedClass = classNameIndex[i] == 0 ? null : toReferencedClassName(utf8[classNameIndex[i]]);
+            if (referencedClass != null && !referencedClass.equals(className))
+                referencedClasses.add(referencedClass);
+        }
+
+        return new ClassInfo(className, superClassName, accessFlags, annotatedMethods,
+                new ArrayList<>(referencedClasses));
+    }
+
+    /**
+     * Class constants of array types use a descriptor, like [Lcom/example/Foo;
+     * or [[I. Those are mapped to their element class, or null for primitives.
+     */
+    private static String toReferencedClassName(String name) {
+        if (!name.startsWith("["))
+            return toBinaryName(name);
+
+        String elementType = name.substring(name.lastIndexOf('[') + 1);
+        if (!elementType.startsWith("L") || !elementType.endsWith(";"))
+            return null;
+
+        return toBinaryName(elementType.substring(1, elementType.length() - 1));
+    }
+
+    /**
+     * @return the first of the given annotation descriptors that is present, or null
+     */
+    private static String findAnnotation(DataInputStream in, String[] utf8, String[] annotationDescriptors)
+            throws IOException {
+        String found = null;
+
+        int annotationCount = in.readUnsignedShort();
+        for (int i = 0; i < annotationCount; i++) {
+            String type = utf8[in.readUnsignedShort()];
+            for (String annotationDescriptor : annotationDescriptors)
+                if (found == null && annotationDescriptor.equals(type))
+                    found = annotationDescriptor;
+
+            skipElementValuePairs(in);
+        }
+
+        return found;
+    }
+
+    private static void skipAnnotation(DataInputStream in) throws IOException {
+        in.skipBytes(2); // type
+        skipElementValuePairs(in);
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.skipBytes(2); // name
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                in.skipBytes(4);
+                break;
+            case '@':
+                skipAnnotation(in);
+                break;
+            case '[':
+                int valueCount = in.readUnsignedShort();
+                for (int i = 0; i < valueCount; i++)
+                    skipElementValue(in);
+                break;
+            default:
+                // Constant values and class literals refer to a single constant
+                in.skipBytes(2);
+        }
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            in.skipBytes(2);
+            skipFully(in, in.readInt());
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0)
+                throw new IOException("Unexpected end of class file");
+            remaining -= skipped;
+        }
+    }
+
+    private static String toBinaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+}
@@ -18,6 +18,19 @@ public class ConfigurationManager {
 
 	public static final ILogNode LOG = Core.getLogger("UnitTestRunner");
 
+	private static final String SUITE_PARALLELISM_PROPERTY = "unittesting.suiteParallelism";
+	private static final String TEST_PARALLELISM_PROPERTY = "unittesting.testParallelism";
+	private static final String JUNIT_PARALLELISM_PROPERTY = "unittesting.junitParallelism";
+	private static final String JUNIT_PARALLEL_METHODS_PROPERTY = "unittesting.junitParallelMethods";
+	private static final String RESULT_BATCH_SIZE_PROPERTY = "unittesting.resultBatchSize";
+	private static final String PROGRESS_INTERVAL_PROPERTY = "unittesting.progressInterval";
+	private static final String PERSIST_TEST_INDEX_PROPERTY = "unittesting.persistTestIndex";
+	private static final String REDISCOVERY_DELAY_PROPERTY = "unittesting.rediscoveryDelay";
+	private static final String WATCH_MODE_PROPERTY = "unittesting.watchMode";
+	private static final String JUNIT_RESULT_CACHE_PROPERTY = "unittesting.junitResultCache";
+	private static final String WARM_UP_PROPERTY = "unittesting.warmUp";
+	private static final String VIRTUAL_THREADS_PROPERTY = "unittesting.virtualThreads";
+
 	private static IsEnabled isEnabled = IsEnabled.UNDETERMINED;
 	private static boolean isInitialized = false;
 
@@ -62,9 +75,145 @@ public class ConfigurationManager {
 
 	public static void initialize() {
 		isInitialized = true;
+
+		if (isEnabled() && warmUpOnStartup())
+			DiscoveryWarmUp.start();
 	}
 
 	public static boolean isInitialized() {
 		return isInitialized;
 	}
+
+	/**
+	 * Number of test suites that are run simultaneously by
+	 * {@link TestManager#runTestSuites()}. Defaults to 1 (one suite after
+	 * another). Configure using the JVM option -Dunittesting.suiteParallelism=N
+	 */
+	public static int getSuiteParallelism() {
+		return Math.max(1, getIntegerSetting(SUITE_PARALLELISM_PROPERTY, 1));
+	}
+
+	/**
+	 * Maximum number of microflow tests of the given suite that are run at the
+	 * same time. Only applies to suites with AutoRollbackMFs enabled, as only
+	 * those run every test in an isolated transaction. Configure for all suites
+	 * using -Dunittesting.testParallelism=N or for a single module using
+	 * -Dunittesting.testParallelism.MyModule=N
+	 */
+	public static int getMicroflowTestParallelism(String module) {
+		int defaultParallelism = getIntegerSetting(TEST_PARALLELISM_PROPERTY, 1);
+		return Math.max(1, getIntegerSetting(TEST_PARALLELISM_PROPERTY + "." + module, defaultParallelism));
+	}
+
+	/**
+	 * Number of JUnit test classes of a suite that are run at the same time.
+	 * Defaults to 1 (one class after another). Configure using
+	 * -Dunittesting.junitParallelism=N
+	 */
+	public static int getJUnitParallelism() {
+		return Math.max(1, getIntegerSetting(JUNIT_PARALLELISM_PROPERTY, 1));
+	}
+
+	/**
+	 * Whether the test methods within a JUnit test class also run at the same
+	 * time, when {@link #getJUnitParallelism()} is above 1. The methods of all
+	 * classes share that limit, so no more tests run at the same time than
+	 * without this setting. Enable using -Dunittesting.junitParallelMethods=true
+	 */
+	public static boolean runJUnitMethodsInParallel() {
+		return getBooleanSetting(JUNIT_PARALLEL_METHODS_PROPERTY, false);
+	}
+
+	/**
+	 * Maximum number of unit test results that are buffered before they are
+	 * committed in one go. Configure using -Dunittesting.resultBatchSize=N
+	 */
+	public static int getResultBatchSize() {
+		return Math.max(1, getIntegerSetting(RESULT_BATCH_SIZE_PROPERTY, 100));
+	}
+
+	/**
+	 * Interval in milliseconds at which results and suite counters of a running
+	 * test suite are written, so the overview can show progress. Configure using
+	 * -Dunittesting.progressInterval=N
+	 */
+	public static long getProgressInterval() {
+		return Math.max(0, getIntegerSetting(PROGRESS_INTERVAL_PROPERTY, 1000));
+	}
+
+	/**
+	 * Whether the JUnit test index is stored in the data folder of the
+	 * deployment, so it can be reused after a restart. Disabled by default;
+	 * enable using -Dunittesting.persistTestIndex=true
+	 */
+	public static boolean persistTestIndex() {
+		return getBooleanSetting(PERSIST_TEST_INDEX_PROPERTY, false);
+	}
+
+	/**
+	 * Delay in milliseconds after a model update before the test suites of the
+	 * changed modules are refreshed. Model updates within this delay are handled
+	 * together. A negative value disables the automatic refresh, which is the
+	 * default unless watch mode is enabled; watch mode defaults to 2000.
+	 * Enable using -Dunittesting.rediscoveryDelay=N
+	 */
+	public static long getRediscoveryDelay() {
+		return getIntegerSetting(REDISCOVERY_DELAY_PROPERTY, isWatchModeEnabled() ? 2000 : -1);
+	}
+
+	/**
+	 * Whether the tests of changed modules and all previously failed tests are run
+	 * automatically after a model update. Enables the automatic rediscovery, see
+	 * {@link #getRediscoveryDelay()}. Enable using -Dunittesting.watchMode=true
+	 */
+	public static boolean isWatchModeEnabled() {
+		return getBooleanSetting(WATCH_MODE_PROPERTY, false);
+	}
+
+	/**
+	 * Whether JUnit test classes that passed before are skipped as long as they,
+	 * the classes they refer to and the model did not change. Enable using
+	 * -Dunittesting.junitResultCache=true
+	 */
+	public static boolean useJUnitResultCache() {
+		return getBooleanSetting(JUNIT_RESULT_CACHE_PROPERTY, false);
+	}
+
+	/**
+	 * Whether the in-memory discovery indexes are built in the background when
+	 * the module is initialized, so the first test run does not have to wait for
+	 * them. Disabled by default; enable using -Dunittesting.warmUp=true
+	 */
+	public static boolean warmUpOnStartup() {
+		return getBooleanSetting(WARM_UP_PROPERTY, false);
+	}
+
+	/**
+	 * Whether parallel test runs should use virtual threads when the JVM supports
+	 * them. Configure using the JVM option -Dunittesting.virtualThreads=true
+	 */
+	public static boolean useVirtualThreads() {
+		return getBooleanSetting(VIRTUAL_THREADS_PROPERTY, false);
+	}
+
+	static int getIntegerSetting(String name, int defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty())
+			return defaultValue;
+
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			LOG.warn("Invalid value '" + value + "' for setting " + name + ", using default " + defaultValue);
+			return defaultValue;
+		}
+	}
+
+	static boolean getBooleanSetting(String name, boolean defaultValue) {
+		String value = System.getProperty(name);
+		if (value == null || value.trim().isEmpty())
+			return defaultValue;
+
+		return Boolean.parseBoolean(value.trim());
+	}
 }
@@ -0,0 +1,73 @@
+package unittesting;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.mendix.core.Core;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.constants.Constants;
+
+/**
+ * Builds the in-memory indexes used by test discovery and test runs in the
+ * background after startup: the microflow index, the call plans of the test
+ * microflows, the JUnit test index and the JUnit test classes. Test suites and
+ * unit tests are only read, never created or changed, and the TestManager is
+ * not locked, so a test run started meanwhile does not wait for the warm-up.
+ */
+public class DiscoveryWarmUp implements Runnable {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final AtomicBoolean started = new AtomicBoolean(false);
+
+    private DiscoveryWarmUp() {
+    }
+
+    /**
+     * Starts the warm-up on a low priority background thread, once per runtime.
+     */
+    public static void start() {
+        if (!started.compareAndSet(false, true))
+            return;
+
+        Thread thread = new Thread(new DiscoveryWarmUp(), "UnitTestRunner-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        long startTime = System.currentTimeMillis();
+        LOG.debug("Warming up unit test discovery");
+
+        try {
+            IContext context = Core.createSystemContext();
+            TestManager testManager = TestManager.instance();
+
+            MicroflowIndex.get();
+            if (Constants.getFindJUnitTests())
+                JavaTestDiscovery.getTestIndex();
+
+            List<IMendixObject> testSuites = Core.createXPathQuery(String.format("//%s", TestSuite.entityName))
+                    .execute(context);
+
+            for (IMendixObject mxObject : testSuites) {
+                TestSuite testSuite = TestSuite.initialize(context, mxObject);
+
+                for (String microflow : testManager.findMicroflowUnitTests(testSuite))
+                    MicroflowCallPlan.get(microflow);
+
+                if (Constants.getFindJUnitTests())
+                    JavaTestDiscovery.getUnitTestClasses(testSuite);
+            }
+
+            LOG.info("Warmed up unit test discovery in "
+                    + TestManager.formatAsReadableTime(System.currentTimeMillis() - startTime));
+        } catch (Throwable e) {
+            LOG.warn("Unable to warm up unit test discovery: " + e.getMessage(), e);
+        }
+    }
+}
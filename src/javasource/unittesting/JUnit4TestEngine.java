@@ -0,0 +1,109 @@
+package unittesting;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.Computer;
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.manipulation.Filter;
+
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.TestSuite;
+
+/**
+ * Runs JUnit 4 tests with {@link JUnitCore}, in parallel when configured.
+ */
+public class JUnit4TestEngine implements JavaTestEngine {
+    private static final List<String> TEST_ANNOTATIONS = Collections
+            .singletonList(ClassFileScanner.JUNIT_TEST_ANNOTATION);
+
+    @Override
+    public String getName() {
+        return "JUnit 4";
+    }
+
+    @Override
+    public List<String> getTestAnnotations() {
+        return TEST_ANNOTATIONS;
+    }
+
+    @Override
+    public boolean isTestMethod(ClassFileScanner.MethodInfo method) {
+        // JUnit 4 only runs public test methods
+        return method.isPublic();
+    }
+
+    @Override
+    public boolean isTestClass(Class<?> testClass) {
+        for (Method method : testClass.getMethods())
+            if (method.isAnnotationPresent(Test.class))
+                return true;
+
+        return false;
+    }
+
+    @Override
+    public void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests, Class<?>[] testClasses) {
+        JUnitCore junit = new JUnitCore();
+        junit.addListener(new UnitTestRunListener(context, testSuite, unitTests));
+        junit.run(getComputer(), testClasses);
+    }
+
+    @Override
+    public void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests,
+            Map<Class<?>, Set<String>> testMethods) {
+        Class<?>[] testClasses = testMethods.keySet().toArray(new Class<?>[0]);
+        Request request = Request.classes(getComputer(), testClasses).filterWith(new SelectedTestsFilter(testMethods));
+
+        JUnitCore junit = new JUnitCore();
+        junit.addListener(new UnitTestRunListener(context, testSuite, unitTests));
+        junit.run(request);
+    }
+
+    /**
+     * Keeps the given methods of every class, or all tests of a class that is
+     * mapped to no methods.
+     */
+    private static class SelectedTestsFilter extends Filter {
+        private final Map<String, Set<String>> testMethods = new HashMap<>();
+
+        SelectedTestsFilter(Map<Class<?>, Set<String>> testMethods) {
+            testMethods.forEach((testClass, methods) -> this.testMethods.put(testClass.getName(), methods));
+        }
+
+        @Override
+        public boolean shouldRun(Description description) {
+            if (description.isTest()) {
+                Set<String> methods = testMethods.get(description.getClassName());
+                return methods != null && (methods.isEmpty() || methods.contains(description.getMethodName()));
+            }
+
+            for (Description child : description.getChildren())
+                if (shouldRun(child))
+                    return true;
+
+            return false;
+        }
+
+        @Override
+        public String describe() {
+            return "selected tests";
+        }
+    }
+
+    private static Computer getComputer() {
+        int parallelism = ConfigurationManager.getJUnitParallelism();
+        if (parallelism <= 1)
+            return new Computer();
+
+        return new ParallelJUnitComputer(parallelism, ConfigurationManager.runJUnitMethodsInParallel());
+    }
+}
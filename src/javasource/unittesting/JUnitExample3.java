@@ -0,0 +1,42 @@
+package unittesting;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.RepetitionInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+public class JUnitExample3 {
+	private boolean state;
+
+	@BeforeEach
+	void setup() {
+		this.state = false;
+	}
+
+	@Test
+	void testWithJUnitJupiter() {
+		this.state = true;
+		TestManager.instance().reportStep("JUnit Jupiter tests do not need to be public");
+		assertTrue(state);
+	}
+
+	@RepeatedTest(3)
+	void testThatIsRepeated(RepetitionInfo repetitionInfo) {
+		TestManager.instance().reportStep("Repetition " + repetitionInfo.getCurrentRepetition() + " of "
+				+ repetitionInfo.getTotalRepetitions() + ", reported as a single test");
+		assertTrue(repetitionInfo.getCurrentRepetition() > 0);
+	}
+
+	@TestFactory
+	Stream<DynamicTest> testsThatAreCreatedDynamically() {
+		return Arrays.asList("a", "b", "c").stream()
+				.map(value -> DynamicTest.dynamicTest("Value " + value, () -> assertEquals(1, value.length())));
+	}
+}
@@ -0,0 +1,219 @@
+package unittesting;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.EngineFilter;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.TestSuite;
+
+/**
+ * Runs JUnit Jupiter tests through the JUnit Platform launcher. Repeated,
+ * parameterized and dynamic tests are reported on the method that declares
+ * them.
+ *
+ * Jupiter's own configuration (system properties and junit-platform.properties)
+ * is honored. When it does not configure parallel execution, the JUnit
+ * parallelism of this module is applied the same way as for JUnit 4 tests.
+ *
+ * junit-jupiter-params does not ship with this module. Projects that write
+ * parameterized tests add it to their own libraries.
+ */
+public class JUnitPlatformTestEngine implements JavaTestEngine {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final String ENGINE_ID = "junit-jupiter";
+    private static final String PARALLEL_ENABLED = "junit.jupiter.execution.parallel.enabled";
+    private static final String PLATFORM_PROPERTIES = "junit-platform.properties";
+
+    private static final List<String> TEST_ANNOTATIONS = Collections.unmodifiableList(Arrays.asList(
+            "Lorg/junit/jupiter/api/Test;",
+            "Lorg/junit/jupiter/api/RepeatedTest;",
+            "Lorg/junit/jupiter/api/TestFactory;",
+            "Lorg/junit/jupiter/api/TestTemplate;",
+            "Lorg/junit/jupiter/params/ParameterizedTest;"));
+
+    private volatile Launcher launcher;
+
+    @Override
+    public String getName() {
+        return "JUnit Jupiter";
+    }
+
+    @Override
+    public List<String> getTestAnnotations() {
+        return TEST_ANNOTATIONS;
+    }
+
+    @Override
+    public boolean isTestMethod(ClassFileScanner.MethodInfo method) {
+        // Jupiter runs test methods of any visibility except private
+        return !method.isPrivate();
+    }
+
+    @Override
+    public boolean isTestClass(Class<?> testClass) {
+        for (Class<?> current = testClass; current != null && current != Object.class; current = current
+                .getSuperclass()) {
+            for (Method method : current.getDeclaredMethods())
+                if (isTestMethod(method))
+                    return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests, Class<?>[] testClasses) {
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        for (Class<?> testClass : testClasses)
+            selectors.add(DiscoverySelectors.selectClass(testClass));
+
+        execute(selectors, new UnitTestExecutionListener(context, testSuite, unitTests));
+    }
+
+    @Override
+    public void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests,
+            Map<Class<?>, Set<String>> testMethods) {
+        List<DiscoverySelector> selectors = new ArrayList<>();
+
+        testMethods.forEach((testClass, methods) -> {
+            if (methods.isEmpty())
+                selectors.add(DiscoverySelectors.selectClass(testClass));
+
+            for (String methodName : methods) {
+                Optional<Method> method = findTestMethod(testClass, methodName);
+                if (method.isPresent())
+                    selectors.add(DiscoverySelectors.selectMethod(testClass, method.get()));
+                else
+                    LOG.warn("No JUnit Jupiter test method '" + methodName + "' in " + testClass.getName());
+            }
+        });
+
+        if (!selectors.isEmpty())
+            execute(selectors, new UnitTestExecutionListener(context, testSuite, unitTests));
+    }
+
+    private void execute(List<DiscoverySelector> selectors, UnitTestExecutionListener listener) {
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectors)
+                .filters(EngineFilter.includeEngines(ENGINE_ID))
+                .configurationParameters(getParallelConfiguration(JUnitPlatformTestEngine.class.getClassLoader()))
+                .build();
+
+        // Jupiter resolves extensions and its configuration through the context class loader
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(JUnitPlatformTestEngine.class.getClassLoader());
+        try {
+            getLauncher().execute(request, listener);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * The launcher is created once, with the context class loader set, and
+     * reused for every run.
+     */
+    private Launcher getLauncher() {
+        Launcher current = launcher;
+        if (current == null) {
+            synchronized (this) {
+                current = launcher;
+                if (current == null) {
+                    current = LauncherFactory.create();
+                    launcher = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Maps -Dunittesting.junitParallelism and -Dunittesting.junitParallelMethods
+     * to the Jupiter parallel execution parameters, unless parallel execution is
+     * configured as a system property or in the junit-platform.properties of the
+     * given class loader.
+     */
+    public static Map<String, String> getParallelConfiguration(ClassLoader classLoader) {
+        Map<String, String> configuration = new HashMap<>();
+        int parallelism = ConfigurationManager.getJUnitParallelism();
+
+        if (parallelism <= 1 || System.getProperty(PARALLEL_ENABLED) != null
+                || configuresParallelExecution(classLoader))
+            return configuration;
+
+        configuration.put(PARALLEL_ENABLED, "true");
+        configuration.put("junit.jupiter.execution.parallel.mode.classes.default", "concurrent");
+        configuration.put("junit.jupiter.execution.parallel.mode.default",
+                ConfigurationManager.runJUnitMethodsInParallel() ? "concurrent" : "same_thread");
+        configuration.put("junit.jupiter.execution.parallel.config.strategy", "fixed");
+        configuration.put("junit.jupiter.execution.parallel.config.fixed.parallelism", Integer.toString(parallelism));
+        configuration.put("junit.jupiter.execution.parallel.config.fixed.max-pool-size",
+                Integer.toString(parallelism));
+
+        return configuration;
+    }
+
+    private static boolean configuresParallelExecution(ClassLoader classLoader) {
+        URL platformProperties = classLoader.getResource(PLATFORM_PROPERTIES);
+        if (platformProperties == null)
+            return false;
+
+        Properties properties = new Properties();
+        try (InputStream in = platformProperties.openStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOG.warn("Unable to read " + PLATFORM_PROPERTIES + ": " + e.getMessage());
+        }
+
+        return properties.containsKey(PARALLEL_ENABLED);
+    }
+
+    private Optional<Method> findTestMethod(Class<?> testClass, String methodName) {
+        for (Class<?> current = testClass; current != null && current != Object.class; current = current
+                .getSuperclass()) {
+            for (Method method : current.getDeclaredMethods())
+                if (method.getName().equals(methodName) && isTestMethod(method))
+                    return Optional.of(method);
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean isTestMethod(Method method) {
+        if (Modifier.isPrivate(method.getModifiers()) || Modifier.isStatic(method.getModifiers()))
+            return false;
+
+        for (Annotation annotation : method.getAnnotations()) {
+            String descriptor = "L" + annotation.annotationType().getName().replace('.', '/') + ";";
+            if (TEST_ANNOTATIONS.contains(descriptor))
+                return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,213 @@
+package unittesting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import com.mendix.core.Core;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Remembers which JUnit test classes passed completely, together with a CRC of
+ * the class and the classes it refers to, and a fingerprint of the model. As
+ * long as neither changed, the tests of such a class are reported as passed
+ * without running them. The cache is stored in the data folder of the
+ * deployment, next to the stored JUnit test index, so it survives a restart.
+ * Enable using -Dunittesting.junitResultCache=true
+ */
+public class JUnitResultCache {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final String CACHE_FILE = "data" + File.separator + "unittesting" + File.separator
+            + "junit-results.properties";
+    private static final String MODEL_FILE = "model" + File.separator + "model.mdp";
+    private static final String CACHED_RESULT_MESSAGE = "JUnit test passed before and did not change since; not executed";
+
+    // Used instead of the model file when it cannot be found, so results are only reused by this runtime
+    private static final String RUNTIME_ID = UUID.randomUUID().toString();
+
+    private static JUnitResultCache instance;
+
+    private final File cacheFile;
+    private final ToLongFunction<String> testClassCrcs;
+    private final Supplier<String> modelFingerprint;
+    private final Properties passedClasses = new Properties();
+
+    /**
+     * @param cacheFile        the file the cache is stored in
+     * @param testClassCrcs    the CRC of a test class and the classes it refers
+     *                         to, or 0 for an unknown class
+     * @param modelFingerprint identifies the current version of the model
+     */
+    public JUnitResultCache(File cacheFile, ToLongFunction<String> testClassCrcs, Supplier<String> modelFingerprint) {
+        this.cacheFile = cacheFile;
+        this.testClassCrcs = testClassCrcs;
+        this.modelFingerprint = modelFingerprint;
+
+        if (cacheFile.isFile()) {
+            try (InputStream in = new FileInputStream(cacheFile)) {
+                passedClasses.load(in);
+            } catch (IOException e) {
+                LOG.warn("Unable to read JUnit result cache: " + e.getMessage());
+            }
+        }
+    }
+
+    public static synchronized JUnitResultCache instance() {
+        if (instance == null)
+            instance = new JUnitResultCache(new File(Core.getConfiguration().getBasePath(), CACHE_FILE),
+                    JUnitResultCache::getTestClassCrc, JUnitResultCache::getModelFingerprint);
+
+        return instance;
+    }
+
+    public static boolean isEnabled() {
+        return ConfigurationManager.useJUnitResultCache();
+    }
+
+    /**
+     * @return whether the class passed before and neither it, the classes it
+     *         refers to, nor the model changed since
+     */
+    public synchronized boolean isUnchangedSincePass(String className) {
+        String key = getKey(className);
+        return key != null && key.equals(passedClasses.getProperty(className));
+    }
+
+    /**
+     * Reports the tests of all unchanged, previously passed classes as passed
+     * and adds them to the passed count of the suite.
+     *
+     * @param force run all classes, whether they changed or not
+     * @return the classes that still need to run
+     */
+    public Class<?>[] skipUnchangedClasses(IContext context, TestSuite testSuite, UnitTestIndex unitTests,
+            Class<?>[] classes, boolean force) throws IOException {
+        if (force)
+            return classes;
+
+        Map<String, List<String>> testClasses = JavaTestDiscovery.getTestIndex().getTestClasses(testSuite.getModule());
+        List<Class<?>> classesToRun = new ArrayList<>();
+        List<IMendixObject> cachedTests = new ArrayList<>();
+
+        for (Class<?> testClass : classes) {
+            List<String> testMethods = testClasses.get(testClass.getName());
+
+            if (testMethods == null || !isUnchangedSincePass(testClass.getName())) {
+                classesToRun.add(testClass);
+                continue;
+            }
+
+            for (String testMethod : testMethods) {
+                UnitTest unitTest = unitTests.get(testClass.getName() + "/" + testMethod, false);
+                markCached(unitTest);
+                cachedTests.add(unitTest.getMendixObject());
+            }
+        }
+
+        if (!cachedTests.isEmpty()) {
+            LOG.info("Skipping " + cachedTests.size() + " unchanged JUnit tests of " + testSuite.getModule()
+                    + " that passed before");
+            Core.commit(context, cachedTests);
+            testSuite.setTestPassedCount(testSuite.getTestPassedCount() + cachedTests.size());
+        }
+
+        return classesToRun.toArray(new Class<?>[classesToRun.size()]);
+    }
+
+    /**
+     * Remembers the classes of which all tests passed and forgets the others.
+     */
+    public synchronized void recordResults(UnitTestIndex unitTests, Class<?>[] classes) {
+        for (Class<?> testClass : classes) {
+            String prefix = testClass.getName() + "/";
+            boolean passed = true;
+
+            for (UnitTest unitTest : unitTests.getUnitTests())
+                if (!unitTest.getIsMf() && unitTest.getName().startsWith(prefix))
+                    passed &= unitTest.getResult() == ENUM_UnitTestResult._3_Success;
+
+            String key = passed ? getKey(testClass.getName()) : null;
+            if (key != null)
+                passedClasses.setProperty(testClass.getName(), key);
+            else
+                passedClasses.remove(testClass.getName());
+        }
+
+        save();
+    }
+
+    /**
+     * Forgets the given classes, for instance because only some of their tests
+     * ran: the others did not run against the current code, so the class can not
+     * be remembered as passed.
+     */
+    public synchronized void forget(Collection<Class<?>> classes) {
+        boolean changed = false;
+        for (Class<?> testClass : classes)
+            changed |= passedClasses.remove(testClass.getName()) != null;
+
+        if (changed)
+            save();
+    }
+
+    public static void markCached(UnitTest unitTest) {
+        unitTest.setResult(ENUM_UnitTestResult._3_Success);
+        unitTest.setResultMessage(CACHED_RESULT_MESSAGE);
+        unitTest.setLastRun(new Date());
+    }
+
+    private String getKey(String className) {
+        long classCrc = testClassCrcs.applyAsLong(className);
+        return classCrc == 0 ? null : Long.toHexString(classCrc) + "-" + modelFingerprint.get();
+    }
+
+    private static long getTestClassCrc(String className) {
+        try {
+            return JavaTestDiscovery.getTestIndex().getTestClassCrc(className);
+        } catch (IOException e) {
+            LOG.warn("Unable to read JUnit test index for result cache: " + e.getMessage());
+            return 0L;
+        }
+    }
+
+    private static String getModelFingerprint() {
+        File modelFile = new File(Core.getConfiguration().getBasePath(), MODEL_FILE);
+
+        if (modelFile.isFile())
+            return modelFile.length() + "-" + modelFile.lastModified();
+
+        return RUNTIME_ID + "-" + ModelUpdateSubscriber.getInstance().getModelVersion();
+    }
+
+    private void save() {
+        File cacheFolder = cacheFile.getParentFile();
+        if (cacheFolder != null && !cacheFolder.isDirectory() && !cacheFolder.mkdirs()) {
+            LOG.warn("Unable to store JUnit result cache: unable to create folder " + cacheFolder);
+            return;
+        }
+
+        try (OutputStream out = new FileOutputStream(cacheFile)) {
+            passedClasses.store(out, "JUnit test classes that passed");
+        } catch (IOException e) {
+            LOG.warn("Unable to store JUnit result cache: " + e.getMessage());
+        }
+    }
+}
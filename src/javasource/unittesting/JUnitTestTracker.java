@@ -0,0 +1,119 @@
+package unittesting;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.runner.Description;
+
+/**
+ * Keeps the last reported step and the timing of each running JUnit test. A
+ * test reports to the tracking bound to its own thread (and threads it starts,
+ * like the one JUnit uses for tests with a timeout), while the run listener
+ * reads it by the description of the test. This keeps the steps and timings of
+ * tests that run in parallel apart.
+ *
+ * Threads that outlive their test, like pooled threads created while it ran,
+ * keep the inherited tracking. Once the test finished, it is no longer
+ * returned to them as their current tracking.
+ */
+public final class JUnitTestTracker {
+    private static final InheritableThreadLocal<Tracking> current = new InheritableThreadLocal<Tracking>() {
+        @Override
+        protected Tracking childValue(Tracking parentValue) {
+            return parentValue == null || parentValue.finished ? null : parentValue;
+        }
+    };
+    private static final Map<Description, Tracking> trackings = new ConcurrentHashMap<>();
+
+    /**
+     * Step and timing of a single test. Times are measured with
+     * {@link System#nanoTime()}.
+     */
+    public static final class Tracking {
+        private final long startTime = System.nanoTime();
+        private volatile long measureStartTime = -1;
+        private volatile long measureEndTime = -1;
+        private volatile String lastStep;
+        private volatile boolean finished = false;
+
+        public void reportStep(String step) {
+            lastStep = step;
+        }
+
+        public String getLastStep() {
+            return lastStep;
+        }
+
+        public void startTimeMeasure() {
+            measureStartTime = System.nanoTime();
+            measureEndTime = -1;
+        }
+
+        public void endTimeMeasure() {
+            measureEndTime = System.nanoTime();
+        }
+
+        /**
+         * @return the measured time in nanoseconds if the test measured its time
+         *         itself, otherwise the time since the test started
+         */
+        public long getRunTime() {
+            long start = measureStartTime;
+            long end = measureEndTime;
+
+            if (start >= 0 && end >= start)
+                return end - start;
+
+            return System.nanoTime() - startTime;
+        }
+    }
+
+    private JUnitTestTracker() {
+    }
+
+    /**
+     * Starts tracking a test and binds the tracking to the current thread.
+     */
+    public static Tracking start(Description description) {
+        Tracking tracking = new Tracking();
+        trackings.put(description, tracking);
+        current.set(tracking);
+
+        return tracking;
+    }
+
+    public static Optional<Tracking> get(Description description) {
+        return Optional.ofNullable(trackings.get(description));
+    }
+
+    /**
+     * @return the tracking of the test running on the current thread
+     */
+    public static Optional<Tracking> current() {
+        Tracking tracking = current.get();
+        if (tracking != null && tracking.finished) {
+            current.remove();
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(tracking);
+    }
+
+    /**
+     * Stops tracking a test, also for the threads that inherited its tracking.
+     *
+     * @return the tracking of the test, if it was tracked
+     */
+    public static Optional<Tracking> finish(Description description) {
+        Tracking tracking = trackings.remove(description);
+        if (tracking == null)
+            return Optional.empty();
+
+        tracking.finished = true;
+        if (current.get() == tracking)
+            current.remove();
+
+        return Optional.of(tracking);
+    }
+}
@@ -0,0 +1,81 @@
+package unittesting;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Identifies a version of a jar file by its size, modification time and a CRC
+ * over the names and CRCs of its entries. Size and modification time allow for
+ * a cheap check; the CRC recognizes a rebuilt jar with the same contents.
+ */
+public class JarFingerprint {
+    private final long size;
+    private final long lastModified;
+    private final long crc;
+
+    JarFingerprint(long size, long lastModified, long crc) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.crc = crc;
+    }
+
+    public static JarFingerprint of(File jar) throws IOException {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            return of(jar, zipFile);
+        }
+    }
+
+    static JarFingerprint of(File jar, ZipFile zipFile) {
+        CRC32 crc = new CRC32();
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            crc.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+            crc.update(toBytes(entry.getCrc()));
+        }
+
+        return new JarFingerprint(jar.length(), jar.lastModified(), crc.getValue());
+    }
+
+    /**
+     * @return whether the given jar still has the same size and modification time
+     */
+    public boolean isUnchanged(File jar) {
+        return jar.length() == size && jar.lastModified() == lastModified;
+    }
+
+    public boolean hasSameContents(JarFingerprint other) {
+        return other != null && size == other.size && crc == other.crc;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(size);
+        out.writeLong(lastModified);
+        out.writeLong(crc);
+    }
+
+    static JarFingerprint read(DataInput in) throws IOException {
+        return new JarFingerprint(in.readLong(), in.readLong(), in.readLong());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d, lastModified=%d, crc=%x", size, lastModified, crc);
+    }
+
+    private static byte[] toBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 0; i < 8; i++)
+            bytes[i] = (byte) (value >>> (8 * i));
+
+        return bytes;
+    }
+}
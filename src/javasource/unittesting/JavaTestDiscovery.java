@@ -2,58 +2,35 @@ package unittesting;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.mendix.core.Core;
 import com.mendix.logging.ILogNode;
 
-import org.junit.Test;
-import org.junit.runners.JUnit4;
-import org.junit.runners.model.FrameworkMethod;
-import org.junit.runners.model.InitializationError;
-
 import unittesting.proxies.TestSuite;
 
 public class JavaTestDiscovery {
-    private static final Map<String, Class<?>[]> classCache = new HashMap<>();
+    private static final Map<String, Class<?>[]> classCache = new ConcurrentHashMap<>();
     private static final ILogNode LOG = ConfigurationManager.LOG;
+    // Kept in the data folder of the deployment, as the runtime clears its temporary folder at startup
+    private static final String TEST_INDEX_FILE = "data" + File.separator + "unittesting" + File.separator
+            + "testindex.bin";
+
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static volatile JavaTestIndex testIndex;
 
     public static List<String> findJUnitTests(TestSuite testSuite) {
         List<String> junitTests = new ArrayList<>();
 
         try {
-            Class<?>[] classes = getUnitTestClasses(testSuite);
-
-            if (classes != null && classes.length > 0) {
-                for (Class<?> clazz : classes) {
-
-                    // From
-                    // https://github.com/KentBeck/junit/blob/master/src/main/java/org/junit/runners/BlockJUnit4ClassRunner.java
-                    // method computeTestMethods
-                    try {
-                        List<FrameworkMethod> methods = new JUnit4(clazz).getTestClass()
-                                .getAnnotatedMethods(Test.class);
-
-                        if (methods != null && !methods.isEmpty())
-                            for (FrameworkMethod method : methods)
-                                junitTests.add(clazz.getName() + "/" + method.getName());
-                    } catch (InitializationError e2) {
-                        StringBuilder errors = new StringBuilder();
-
-                        for (Throwable cause : e2.getCauses())
-                            errors.append("\n").append(cause.getMessage());
-
-                        LOG.error("Failed to recognize class '" + clazz + "' as unitTestClass: " + errors.toString());
-                    }
-                }
-            }
+            for (Map.Entry<String, List<String>> testClass : getTestIndex().getTestClasses(testSuite.getModule()).entrySet())
+                for (String method : testClass.getValue())
+                    junitTests.add(testClass.getKey() + "/" + method);
         } catch (Exception e) {
             LOG.error("Unable to find JUnit test classes or methods: " + e.getMessage(), e);
         }
@@ -62,79 +39,131 @@ public class JavaTestDiscovery {
     }
 
     public static Class<?>[] getUnitTestClasses(TestSuite testRun) throws IOException {
-        if (!classCache.containsKey(testRun.getModule().toLowerCase())) {
-            ArrayList<Class<?>> classList = getClassesForPackage(testRun.getModule());
-            Class<?>[] classes = classList.toArray(new Class<?>[classList.size()]);
-            classCache.put(testRun.getModule().toLowerCase(), classes);
+        // Validates the cached classes still belong to the current project jar
+        JavaTestIndex index = getTestIndex();
+        String module = testRun.getModule().toLowerCase();
+
+        Class<?>[] classes = classCache.get(module);
+        if (classes == null) {
+            // Only the classes that contain tests are loaded
+            ArrayList<Class<?>> classList = new ArrayList<>();
+            for (String className : index.getTestClasses(module).keySet())
+                classList.add(loadClass(className));
+
+            classes = classList.toArray(new Class<?>[classList.size()]);
+            classCache.put(module, classes);
         }
 
-        return classCache.get(testRun.getModule().toLowerCase());
-    }
-
-    private static ArrayList<Class<?>> getClassesForPackage(String path) throws IOException {
-        ArrayList<Class<?>> classes = new ArrayList<>();
-
-        // Lowercased Mendix module names equals their package names
-        String packageName = path.toLowerCase();
-
-        // Get a File object containing the classes. This file is expected to be
-        // located at [deploymentdir]/model/bundles/project.jar
-        File projectJar = new File(Core.getConfiguration().getBasePath() + File.separator + "model"
-                + File.separator + "bundles" + File.separator + "project.jar");
-
-        processProjectJar(projectJar, packageName, classes);
-
         return classes;
     }
 
     /**
-     * Find runnable classes
-     * https://github.com/ddopson/java-class-enumerator/blob/master/src/pro/ddopson/ClassEnumerator.java
+     * Returns the index of JUnit tests of all modules. The index is rebuilt when
+     * the project jar changes, and reused from disk after a restart when the jar
+     * still has the same fingerprint.
      */
+    public static JavaTestIndex getTestIndex() throws IOException {
+        File projectJar = getProjectJar();
+
+        JavaTestIndex index = testIndex;
+        if (index != null && index.getFingerprint().isUnchanged(projectJar))
+            return index;
+
+        synchronized (JavaTestDiscovery.class) {
+            index = testIndex;
+            if (index == null || !index.getFingerprint().isUnchanged(projectJar)) {
+                classCache.clear();
+                generation.incrementAndGet();
+                index = loadTestIndex(projectJar);
+                testIndex = index;
+            }
 
-    private static Class<?> loadClass(String className) {
-        try {
-            return TestManager.instance().getClass().getClassLoader().loadClass(className);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException("Unexpected ClassNotFoundException loading class '" + className + "'");
+            return index;
         }
     }
 
-    private static void processProjectJar(File projectJar, String packageName, ArrayList<Class<?>> classes)
-            throws IOException {
-        ZipFile zipFile = new ZipFile(projectJar);
+    /**
+     * Drops the cached index and test classes, for instance after a model update.
+     */
+    public static synchronized void invalidate() {
+        LOG.debug("Invalidating JUnit test discovery cache");
+        testIndex = null;
+        classCache.clear();
+        generation.incrementAndGet();
+    }
 
-        // Get the list of the files contained in the package
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    /**
+     * @return a number that changes whenever the cached test classes are dropped,
+     *         so other caches of test classes know when to drop theirs
+     */
+    public static long getGeneration() {
+        return generation.get();
+    }
 
-        while (entries.hasMoreElements()) {
-            ZipEntry zipEntry = entries.nextElement();
-            String fileName = zipEntry.getName();
+    private static JavaTestIndex loadTestIndex(File projectJar) throws IOException {
+        File indexFile = getTestIndexFile();
 
-            String className = null;
+        if (indexFile != null && indexFile.isFile()) {
+            try {
+                JavaTestIndex storedIndex = JavaTestIndex.read(indexFile);
+                JarFingerprint storedFingerprint = storedIndex.getFingerprint();
 
-            if (fileName.startsWith(packageName.concat("/")) && fileName.endsWith(".class")) {
-                fileName = fileName.replace("/", ".");
+                if (storedIndex.hasCurrentTestAnnotations()) {
+                    if (storedFingerprint.isUnchanged(projectJar)) {
+                        LOG.debug("Reusing stored JUnit test index (" + storedFingerprint + ")");
+                        return storedIndex;
+                    }
 
-                // Remove the .class extension
-                className = fileName.substring(0, fileName.length() - 6);
+                    // A redeploy rewrites the jar; the index is kept with the new fingerprint, so the cheap
+                    // check passes from now on
+                    JarFingerprint fingerprint = JarFingerprint.of(projectJar);
+                    if (storedFingerprint.hasSameContents(fingerprint)) {
+                        LOG.debug("Reusing stored JUnit test index for rewritten project jar (" + fingerprint + ")");
+                        return store(storedIndex.withFingerprint(fingerprint), indexFile);
+                    }
+                }
+            } catch (IOException e) {
+                LOG.warn("Unable to read stored JUnit test index, rebuilding it: " + e.getMessage());
             }
+        }
 
-            if (className != null) {
-                Class<?> clazz = loadClass(className);
-                if (isProperUnitTest(clazz))
-                    classes.add(clazz);
-            }
+        JavaTestIndex index = JavaTestIndex.build(projectJar);
+        return indexFile != null ? store(index, indexFile) : index;
+    }
+
+    private static JavaTestIndex store(JavaTestIndex index, File indexFile) {
+        try {
+            File indexFolder = indexFile.getParentFile();
+            if (!indexFolder.isDirectory() && !indexFolder.mkdirs())
+                throw new IOException("Unable to create folder " + indexFolder);
+
+            index.write(indexFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to store JUnit test index: " + e.getMessage());
         }
 
-        zipFile.close();
+        return index;
     }
 
-    private static boolean isProperUnitTest(Class<?> clazz) {
-        for (Method m : clazz.getMethods())
-            if (m.getAnnotation(org.junit.Test.class) != null)
-                return true;
+    private static File getTestIndexFile() {
+        if (!ConfigurationManager.persistTestIndex())
+            return null;
 
-        return false;
+        return new File(Core.getConfiguration().getBasePath(), TEST_INDEX_FILE);
+    }
+
+    private static File getProjectJar() {
+        // Get a File object containing the classes. This file is expected to be
+        // located at [deploymentdir]/model/bundles/project.jar
+        return new File(Core.getConfiguration().getBasePath() + File.separator + "model"
+                + File.separator + "bundles" + File.separator + "project.jar");
+    }
+
+    private static Class<?> loadClass(String className) {
+        try {
+            return TestManager.instance().getClass().getClassLoader().loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Unexpected ClassNotFoundException loading class '" + className + "'");
+        }
     }
 }
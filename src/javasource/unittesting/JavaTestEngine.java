@@ -0,0 +1,52 @@
+package unittesting;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.TestSuite;
+
+/**
+ * A framework that Java tests of a module are written in, like JUnit 4 or
+ * JUnit Jupiter. An engine tells which methods are tests, both from the class
+ * files scanned during discovery and from loaded classes, and runs them while
+ * reporting the results to the unit tests of a suite.
+ *
+ * Engines are looked up through {@link JavaTestEngines}.
+ */
+public interface JavaTestEngine {
+    String getName();
+
+    /**
+     * @return descriptors of the annotations that mark test methods, like
+     *         Lorg/junit/Test;
+     */
+    List<String> getTestAnnotations();
+
+    /**
+     * @return whether a method found while scanning a class file, which carries
+     *         one of the test annotations of an engine, is a test of this engine
+     */
+    boolean isTestMethod(ClassFileScanner.MethodInfo method);
+
+    /**
+     * @return whether the given class, or one of its super classes, declares
+     *         tests of this engine
+     */
+    boolean isTestClass(Class<?> testClass);
+
+    /**
+     * Runs all tests of the given classes and reports their results to the unit
+     * tests of the suite.
+     */
+    void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests, Class<?>[] testClasses);
+
+    /**
+     * Runs the given test methods of every class in a single run, or all tests
+     * of a class that is mapped to no methods, and reports their results to the
+     * unit tests of the suite.
+     */
+    void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests, Map<Class<?>, Set<String>> testMethods);
+}
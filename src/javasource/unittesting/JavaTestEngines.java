@@ -0,0 +1,109 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The Java test engines tests are discovered and run with. JUnit 4 comes
+ * first, so classes that contain tests of multiple engines keep running on it.
+ */
+public final class JavaTestEngines {
+    private static final List<JavaTestEngine> engines = new CopyOnWriteArrayList<>(
+            Arrays.asList(new JUnit4TestEngine(), new JUnitPlatformTestEngine()));
+
+    private JavaTestEngines() {
+    }
+
+    /**
+     * Adds an engine after the built-in ones. Drops the cached test discovery,
+     * so tests of the new engine are picked up by the next discovery.
+     */
+    public static void register(JavaTestEngine engine) {
+        engines.add(engine);
+        JavaTestDiscovery.invalidate();
+    }
+
+    public static List<JavaTestEngine> getEngines() {
+        return engines;
+    }
+
+    /**
+     * @return the test annotation descriptors of all engines
+     */
+    public static String[] getTestAnnotations() {
+        Set<String> annotations = new LinkedHashSet<>();
+        for (JavaTestEngine engine : engines)
+            annotations.addAll(engine.getTestAnnotations());
+
+        return annotations.toArray(new String[0]);
+    }
+
+    public static boolean isTestMethod(ClassFileScanner.MethodInfo method) {
+        for (JavaTestEngine engine : engines)
+            if (engine.getTestAnnotations().contains(method.getAnnotation()) && engine.isTestMethod(method))
+                return true;
+
+        return false;
+    }
+
+    public static Optional<JavaTestEngine> forClass(Class<?> testClass) {
+        for (JavaTestEngine engine : engines)
+            if (engine.isTestClass(testClass))
+                return Optional.of(engine);
+
+        return Optional.empty();
+    }
+
+    /**
+     * Groups test classes by the engine that runs them, in engine order. Classes
+     * no engine recognizes are left to the first one, which reports them the way
+     * it reports any class without tests.
+     */
+    public static Map<JavaTestEngine, Class<?>[]> groupByEngine(Class<?>[] testClasses) {
+        Map<JavaTestEngine, Class<?>[]> grouped = new LinkedHashMap<>();
+        groupByEngine(Arrays.asList(testClasses)).forEach(
+                (engine, classes) -> grouped.put(engine, classes.toArray(new Class<?>[0])));
+
+        return grouped;
+    }
+
+    /**
+     * Like {@link #groupByEngine(Class[])}, for the test methods of each class.
+     */
+    public static Map<JavaTestEngine, Map<Class<?>, Set<String>>> groupByEngine(
+            Map<Class<?>, Set<String>> testMethods) {
+        Map<JavaTestEngine, Map<Class<?>, Set<String>>> grouped = new LinkedHashMap<>();
+        groupByEngine(testMethods.keySet()).forEach((engine, classes) -> {
+            Map<Class<?>, Set<String>> engineTestMethods = new LinkedHashMap<>();
+            for (Class<?> testClass : classes)
+                engineTestMethods.put(testClass, testMethods.get(testClass));
+            grouped.put(engine, engineTestMethods);
+        });
+
+        return grouped;
+    }
+
+    private static Map<JavaTestEngine, List<Class<?>>> groupByEngine(Collection<Class<?>> testClasses) {
+        Map<JavaTestEngine, List<Class<?>>> classesByEngine = new HashMap<>();
+        for (Class<?> testClass : testClasses) {
+            JavaTestEngine engine = forClass(testClass).orElse(engines.get(0));
+            classesByEngine.computeIfAbsent(engine, e -> new ArrayList<>()).add(testClass);
+        }
+
+        Map<JavaTestEngine, List<Class<?>>> grouped = new LinkedHashMap<>();
+        for (JavaTestEngine engine : engines)
+            if (classesByEngine.containsKey(engine))
+                grouped.put(engine, classesByEngine.get(engine));
+
+        return grouped;
+    }
+}
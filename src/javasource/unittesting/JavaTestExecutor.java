@@ -0,0 +1,247 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.runner.Description;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.Runner;
+import org.junit.runner.notification.Failure;
+import org.junit.runner.notification.RunListener;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+
+import com.mendix.core.CoreException;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.TestSuite;
+
+/**
+ * Runs individual Java tests, specified as $testClass or $testClass/$testMethod,
+ * for instance when the same few tests are rerun over and over. The loaded test
+ * classes, the JUnit runner of every test specification and a single JUnitCore
+ * with its listener are kept between runs, so rerunning a test only executes
+ * it. All of it is dropped when the cached test classes of
+ * {@link JavaTestDiscovery} are, like after a model update.
+ *
+ * Runs are serialized. Tests of other engines than JUnit 4 are handed to their
+ * {@link JavaTestEngine} in a single run per engine.
+ */
+public class JavaTestExecutor {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final JavaTestExecutor instance = new JavaTestExecutor();
+
+    private final Map<String, Class<?>> testClasses = new HashMap<>();
+    private final Map<Class<?>, JavaTestEngine> engines = new HashMap<>();
+    private final Map<String, Runner> runners = new HashMap<>();
+    private final JUnitCore junit = new JUnitCore();
+    private final ForwardingRunListener listener = new ForwardingRunListener();
+    private long discoveryGeneration = -1;
+
+    private JavaTestExecutor() {
+        junit.addListener(listener);
+    }
+
+    public static JavaTestExecutor instance() {
+        return instance;
+    }
+
+    public void run(IContext context, TestSuite testSuite, Collection<String> testSpecs)
+            throws ClassNotFoundException, CoreException {
+        run(context, testSuite, null, testSpecs);
+    }
+
+    /**
+     * Runs the given tests of a suite, all JUnit 4 tests in a single run.
+     *
+     * @param unitTests the unit tests of the suite, or null to load them when
+     *                  the first result is reported
+     */
+    public synchronized void run(IContext context, TestSuite testSuite, UnitTestIndex unitTests,
+            Collection<String> testSpecs) throws ClassNotFoundException, CoreException {
+        dropOutdatedCaches();
+
+        List<Runner> junit4Runners = new ArrayList<>();
+        Map<JavaTestEngine, Map<Class<?>, Set<String>>> otherTests = new LinkedHashMap<>();
+        Set<Class<?>> wholeClasses = new HashSet<>();
+
+        for (String testSpec : testSpecs) {
+            String[] parts = testSpec.split("/");
+            if (parts.length > 2)
+                throw new CoreException("Invalid test specification: " + testSpec
+                        + "\nTest method run should be defined in either form $testClass or $testClass/$testMethod.");
+
+            Class<?> testClass = getTestClass(parts[0]);
+            JavaTestEngine engine = getEngine(testClass);
+
+            if (engine instanceof JUnit4TestEngine) {
+                junit4Runners.add(getRunner(testSpec, testClass, parts.length == 2 ? parts[1] : null));
+            } else {
+                Set<String> methods = otherTests.computeIfAbsent(engine, e -> new LinkedHashMap<>())
+                        .computeIfAbsent(testClass, c -> new LinkedHashSet<>());
+                if (parts.length == 2)
+                    methods.add(parts[1]);
+                else
+                    wholeClasses.add(testClass);
+            }
+        }
+
+        if (!junit4Runners.isEmpty())
+            runJUnit4(context, testSuite, unitTests, junit4Runners);
+
+        for (Map.Entry<JavaTestEngine, Map<Class<?>, Set<String>>> engineTests : otherTests.entrySet()) {
+            Map<Class<?>, Set<String>> testMethods = engineTests.getValue();
+            for (Class<?> wholeClass : wholeClasses)
+                testMethods.computeIfPresent(wholeClass, (c, methods) -> Collections.emptySet());
+
+            engineTests.getKey().run(context, testSuite, unitTests, testMethods);
+        }
+    }
+
+    private void runJUnit4(IContext context, TestSuite testSuite, UnitTestIndex unitTests, List<Runner> junit4Runners)
+            throws CoreException {
+        Runner runner;
+        try {
+            runner = junit4Runners.size() == 1 ? junit4Runners.get(0) : new SelectedTests(junit4Runners);
+        } catch (InitializationError e) {
+            throw new CoreException("Unable to run JUnit tests: " + e.getMessage(), e);
+        }
+
+        listener.setDelegate(new UnitTestRunListener(context, testSuite, unitTests));
+        try {
+            junit.run(runner);
+        } finally {
+            listener.setDelegate(null);
+        }
+    }
+
+    private void dropOutdatedCaches() {
+        long generation = JavaTestDiscovery.getGeneration();
+        if (generation == discoveryGeneration)
+            return;
+
+        if (!runners.isEmpty())
+            LOG.debug("Dropping " + runners.size() + " cached JUnit test runners");
+
+        testClasses.clear();
+        engines.clear();
+        runners.clear();
+        discoveryGeneration = generation;
+    }
+
+    private Class<?> getTestClass(String className) throws ClassNotFoundException {
+        Class<?> testClass = testClasses.get(className);
+        if (testClass == null) {
+            testClass = Class.forName(className);
+            testClasses.put(className, testClass);
+        }
+
+        return testClass;
+    }
+
+    private JavaTestEngine getEngine(Class<?> testClass) {
+        return engines.computeIfAbsent(testClass,
+                c -> JavaTestEngines.forClass(c).orElse(JavaTestEngines.getEngines().get(0)));
+    }
+
+    private Runner getRunner(String testSpec, Class<?> testClass, String methodName) {
+        return runners.computeIfAbsent(testSpec, spec -> (methodName == null ? Request.aClass(testClass)
+                : Request.method(testClass, methodName)).getRunner());
+    }
+
+    /**
+     * Runs the runners of multiple test specifications as a single run.
+     */
+    private static class SelectedTests extends Suite {
+        SelectedTests(List<Runner> runners) throws InitializationError {
+            super((Class<?>) null, runners);
+        }
+    }
+
+    /**
+     * Forwards the events of the shared JUnitCore to the listener of the current
+     * run, which reports to the unit tests of its suite.
+     */
+    @RunListener.ThreadSafe
+    private static class ForwardingRunListener extends RunListener {
+        private volatile RunListener delegate;
+
+        void setDelegate(RunListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void testRunStarted(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testRunStarted(description);
+        }
+
+        @Override
+        public void testRunFinished(Result result) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testRunFinished(result);
+        }
+
+        @Override
+        public void testSuiteStarted(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testSuiteStarted(description);
+        }
+
+        @Override
+        public void testSuiteFinished(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testSuiteFinished(description);
+        }
+
+        @Override
+        public void testStarted(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testStarted(description);
+        }
+
+        @Override
+        public void testFinished(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testFinished(description);
+        }
+
+        @Override
+        public void testFailure(Failure failure) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testFailure(failure);
+        }
+
+        @Override
+        public void testAssumptionFailure(Failure failure) {
+            RunListener current = delegate;
+            if (current != null)
+                current.testAssumptionFailure(failure);
+        }
+
+        @Override
+        public void testIgnored(Description description) throws Exception {
+            RunListener current = delegate;
+            if (current != null)
+                current.testIgnored(description);
+        }
+    }
+}
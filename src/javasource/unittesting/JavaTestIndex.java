@@ -0,0 +1,319 @@
+package unittesting;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.mendix.logging.ILogNode;
+
+import unittesting.ClassFileScanner.ClassInfo;
+import unittesting.ClassFileScanner.MethodInfo;
+
+/**
+ * Index of the Java tests of all modules, built in a single pass over the
+ * project jar. Class files are scanned in parallel and none of them is loaded.
+ * The index maps module package, to test class, to test method names. Test
+ * methods are the ones any of the {@link JavaTestEngines} recognizes.
+ */
+public class JavaTestIndex {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private static final int FILE_FORMAT_VERSION = 4;
+
+    private final JarFingerprint fingerprint;
+    private final String testAnnotations;
+    private final Map<String, Long> packageCrcs;
+    private final Map<String, Long> testClassCrcs;
+    private final Map<String, Map<String, List<String>>> testClassesByPackage;
+
+    private JavaTestIndex(JarFingerprint fingerprint, String testAnnotations, Map<String, Long> packageCrcs,
+            Map<String, Long> testClassCrcs, Map<String, Map<String, List<String>>> testClassesByPackage) {
+        this.fingerprint = fingerprint;
+        this.testAnnotations = testAnnotations;
+        this.packageCrcs = packageCrcs;
+        this.testClassCrcs = testClassCrcs;
+        this.testClassesByPackage = testClassesByPackage;
+    }
+
+    public static JavaTestIndex build(File projectJar) throws IOException {
+        long start = System.currentTimeMillis();
+        String[] annotations = JavaTestEngines.getTestAnnotations();
+        Map<String, ClassInfo> classes = new ConcurrentHashMap<>();
+        Map<String, Long> classCrcs = new ConcurrentHashMap<>();
+        Map<String, Long> packageCrcs = new TreeMap<>();
+        JarFingerprint fingerprint;
+
+        try (ZipFile zipFile = new ZipFile(projectJar)) {
+            fingerprint = JarFingerprint.of(projectJar, zipFile);
+
+            List<? extends ZipEntry> entries = zipFile.stream()
+                    .filter(entry -> isModuleClass(entry.getName()))
+                    .collect(Collectors.toList());
+
+            packageCrcs.putAll(computePackageCrcs(entries));
+
+            entries.parallelStream().forEach(entry -> {
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    ClassInfo classInfo = ClassFileScanner.scan(in, annotations);
+                    classes.put(classInfo.getClassName(), classInfo);
+                    classCrcs.put(classInfo.getClassName(), entry.getCrc());
+                } catch (IOException e) {
+                    LOG.warn("Unable to read class file '" + entry.getName() + "': " + e.getMessage());
+                }
+            });
+        }
+
+        Map<String, Map<String, List<String>>> testClassesByPackage = new TreeMap<>();
+        Map<String, Long> testClassCrcs = new TreeMap<>();
+        Map<String, Optional<ClassInfo>> externalClasses = new ConcurrentHashMap<>();
+
+        for (ClassInfo classInfo : classes.values()) {
+            if (!classInfo.isInstantiable())
+                continue;
+
+            List<String> testMethods = collectTestMethods(classInfo, classes, externalClasses, annotations);
+            if (!testMethods.isEmpty()) {
+                testClassesByPackage.computeIfAbsent(getPackage(classInfo.getClassName()), p -> new TreeMap<>())
+                        .put(classInfo.getClassName(), testMethods);
+                testClassCrcs.put(classInfo.getClassName(), computeTestClassCrc(classInfo, classCrcs));
+            }
+        }
+
+        LOG.debug("Indexed " + classes.size() + " classes of " + projectJar.getName() + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+
+        return new JavaTestIndex(fingerprint, String.join(",", annotations), packageCrcs, testClassCrcs,
+                testClassesByPackage);
+    }
+
+    /**
+     * Reads an index previously written by {@link #write(File)}.
+     */
+    public static JavaTestIndex read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_FORMAT_VERSION)
+                throw new IOException("Unsupported test index file format");
+
+            JarFingerprint fingerprint = JarFingerprint.read(in);
+            String testAnnotations = in.readUTF();
+            Map<String, Long> packageCrcs = readCrcs(in);
+            Map<String, Long> testClassCrcs = readCrcs(in);
+            Map<String, Map<String, List<String>>> testClassesByPackage = new TreeMap<>();
+
+            int packageCount = in.readInt();
+            for (int i = 0; i < packageCount; i++) {
+                Map<String, List<String>> testClasses = new TreeMap<>();
+                testClassesByPackage.put(in.readUTF(), testClasses);
+
+                int classCount = in.readInt();
+                for (int j = 0; j < classCount; j++) {
+                    String className = in.readUTF();
+                    List<String> testMethods = new ArrayList<>();
+
+                    int methodCount = in.readInt();
+                    for (int k = 0; k < methodCount; k++)
+                        testMethods.add(in.readUTF());
+
+                    testClasses.put(className, testMethods);
+                }
+            }
+
+            return new JavaTestIndex(fingerprint, testAnnotations, packageCrcs, testClassCrcs, testClassesByPackage);
+        }
+    }
+
+    /**
+     * Writes this index to a compact binary file, so it can be reused after a
+     * restart as long as the project jar did not change.
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(FILE_FORMAT_VERSION);
+            fingerprint.write(out);
+            out.writeUTF(testAnnotations);
+
+            writeCrcs(out, packageCrcs);
+            writeCrcs(out, testClassCrcs);
+
+            out.writeInt(testClassesByPackage.size());
+            for (Map.Entry<String, Map<String, List<String>>> testPackage : testClassesByPackage.entrySet()) {
+                out.writeUTF(testPackage.getKey());
+                out.writeInt(testPackage.getValue().size());
+
+                for (Map.Entry<String, List<String>> testClass : testPackage.getValue().entrySet()) {
+                    out.writeUTF(testClass.getKey());
+                    out.writeInt(testClass.getValue().size());
+
+                    for (String testMethod : testClass.getValue())
+                        out.writeUTF(testMethod);
+                }
+            }
+        }
+    }
+
+    public JarFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return this index for a jar with the same contents, like a project jar
+     *         that was rewritten by a redeploy
+     */
+    public JavaTestIndex withFingerprint(JarFingerprint fingerprint) {
+        return new JavaTestIndex(fingerprint, testAnnotations, packageCrcs, testClassCrcs, testClassesByPackage);
+    }
+
+    /**
+     * @return whether this index was built for the test annotations of the
+     *         currently registered test engines
+     */
+    public boolean hasCurrentTestAnnotations() {
+        return testAnnotations.equals(String.join(",", JavaTestEngines.getTestAnnotations()));
+    }
+
+    /**
+     * @return a CRC over the names and CRCs of the class files of the given module,
+     *         or 0 if the module has no classes
+     */
+    public long getPackageCrc(String module) {
+        return packageCrcs.getOrDefault(module.toLowerCase(), 0L);
+    }
+
+    /**
+     * @return a CRC over the class file of the given test class and the class
+     *         files in the project jar it refers to, or 0 for an unknown class
+     */
+    public long getTestClassCrc(String className) {
+        return testClassCrcs.getOrDefault(className, 0L);
+    }
+
+    /**
+     * @return test method names by class name for the given module
+     */
+    public Map<String, List<String>> getTestClasses(String module) {
+        // Lowercased Mendix module names equals their package names
+        return testClassesByPackage.getOrDefault(module.toLowerCase(), Collections.emptyMap());
+    }
+
+    private static long computeTestClassCrc(ClassInfo classInfo, Map<String, Long> classCrcs) {
+        Set<String> dependencies = new TreeSet<>(classInfo.getReferencedClasses());
+        dependencies.add(classInfo.getClassName());
+
+        CRC32 crc = new CRC32();
+        for (String dependency : dependencies) {
+            Long classCrc = classCrcs.get(dependency);
+            if (classCrc != null) {
+                crc.update(dependency.getBytes(StandardCharsets.UTF_8));
+                crc.update(Long.toString(classCrc).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    private static Map<String, Long> readCrcs(DataInputStream in) throws IOException {
+        Map<String, Long> crcs = new TreeMap<>();
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++)
+            crcs.put(in.readUTF(), in.readLong());
+
+        return crcs;
+    }
+
+    private static void writeCrcs(DataOutputStream out, Map<String, Long> crcs) throws IOException {
+        out.writeInt(crcs.size());
+        for (Map.Entry<String, Long> crc : crcs.entrySet()) {
+            out.writeUTF(crc.getKey());
+            out.writeLong(crc.getValue());
+        }
+    }
+
+    private static Map<String, Long> computePackageCrcs(List<? extends ZipEntry> entries) {
+        Map<String, CRC32> crcs = new HashMap<>();
+
+        for (ZipEntry entry : entries) {
+            String name = entry.getName();
+            CRC32 crc = crcs.computeIfAbsent(name.substring(0, name.indexOf('/')), p -> new CRC32());
+            crc.update(name.getBytes(StandardCharsets.UTF_8));
+            crc.update(Long.toString(entry.getCrc()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Map<String, Long> packageCrcs = new HashMap<>();
+        crcs.forEach((packageName, crc) -> packageCrcs.put(packageName, crc.getValue()));
+        return packageCrcs;
+    }
+
+    private static boolean isModuleClass(String fileName) {
+        return fileName.endsWith(".class") && fileName.indexOf('/') > 0 && !fileName.startsWith("META-INF/");
+    }
+
+    private static String getPackage(String className) {
+        return className.substring(0, className.indexOf('.'));
+    }
+
+    /**
+     * Collects the test methods of a class, including the ones declared in its
+     * super classes (like JUnit does). Super classes outside of the project jar
+     * are read as resources from the class loader, not loaded.
+     */
+    private static List<String> collectTestMethods(ClassInfo classInfo, Map<String, ClassInfo> classes,
+            Map<String, Optional<ClassInfo>> externalClasses, String[] annotations) {
+        Set<String> testMethods = new LinkedHashSet<>();
+
+        for (ClassInfo current = classInfo; current != null;
+                current = findClassInfo(current.getSuperClassName(), classes, externalClasses, annotations)) {
+            for (MethodInfo method : current.getAnnotatedMethodInfos())
+                if (JavaTestEngines.isTestMethod(method))
+                    testMethods.add(method.getName());
+        }
+
+        return new ArrayList<>(testMethods);
+    }
+
+    private static ClassInfo findClassInfo(String className, Map<String, ClassInfo> classes,
+            Map<String, Optional<ClassInfo>> externalClasses, String[] annotations) {
+        if (className == null || className.startsWith("java."))
+            return null;
+
+        if (classes.containsKey(className))
+            return classes.get(className);
+
+        return externalClasses.computeIfAbsent(className, name -> readExternalClass(name, annotations)).orElse(null);
+    }
+
+    private static Optional<ClassInfo> readExternalClass(String className, String[] annotations) {
+        String resource = className.replace('.', '/') + ".class";
+
+        try (InputStream in = TestManager.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in != null)
+                return Optional.of(ClassFileScanner.scan(in, annotations));
+        } catch (IOException e) {
+            LOG.warn("Unable to read class file of '" + className + "': " + e.getMessage());
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,100 @@
+package unittesting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mendix.core.Core;
+import com.mendix.core.actionmanagement.MicroflowCallBuilder;
+import com.mendix.systemwideinterfaces.core.IDataType;
+
+import unittesting.proxies.UnitTestContext;
+
+/**
+ * The validated signature of a test microflow: its return type and whether it
+ * takes the unit test context as parameter. Plans are built once per model
+ * version, so running a test does not need to inspect the microflow again.
+ */
+public class MicroflowCallPlan {
+    public static final String TEST_CONTEXT_PARAM_NAME = "UnitTestContext";
+
+    private static volatile PlanCache cache = new PlanCache(-1);
+
+    private final String microflow;
+    private final IDataType.DataTypeEnum returnType;
+    private final boolean takesTestContext;
+    private final String validationError;
+
+    private MicroflowCallPlan(String microflow) {
+        this.microflow = microflow;
+        this.returnType = Core.getReturnType(microflow).getType();
+
+        Map<String, IDataType> parameters = Core.getInputParameters(microflow);
+        IDataType testContextType = parameters.get(TEST_CONTEXT_PARAM_NAME);
+        this.takesTestContext = testContextType != null && testContextType.isMendixObject()
+                && UnitTestContext.getType().equals(testContextType.getObjectType());
+
+        if (returnType != IDataType.DataTypeEnum.Boolean && returnType != IDataType.DataTypeEnum.String
+                && returnType != IDataType.DataTypeEnum.Nothing)
+            this.validationError = "Microflow should return either a boolean or a string or nothing at all";
+        else if (!parameters.isEmpty() && !(parameters.size() == 1 && takesTestContext))
+            this.validationError = "Identified one or more invalid parameter(s)";
+        else
+            this.validationError = null;
+    }
+
+    /**
+     * @return the plan of the given microflow for the current model version
+     */
+    public static MicroflowCallPlan get(String microflow) {
+        long modelVersion = ModelUpdateSubscriber.getInstance().getModelVersion();
+
+        PlanCache current = cache;
+        if (current.modelVersion != modelVersion) {
+            current = new PlanCache(modelVersion);
+            cache = current;
+        }
+
+        return current.plans.computeIfAbsent(microflow, MicroflowCallPlan::new);
+    }
+
+    public String getMicroflow() {
+        return microflow;
+    }
+
+    public IDataType.DataTypeEnum getReturnType() {
+        return returnType;
+    }
+
+    public boolean takesTestContext() {
+        return takesTestContext;
+    }
+
+    public boolean isValid() {
+        return validationError == null;
+    }
+
+    /**
+     * @return why the microflow cannot be used as test, or null if it is valid
+     */
+    public String getValidationError() {
+        return validationError;
+    }
+
+    public MicroflowCallBuilder newCall(UnitTestContext unitTestContext) {
+        MicroflowCallBuilder builder = Core.microflowCall(microflow);
+
+        if (takesTestContext)
+            builder = builder.withParam(TEST_CONTEXT_PARAM_NAME, unitTestContext.getMendixObject());
+
+        return builder;
+    }
+
+    private static class PlanCache {
+        private final long modelVersion;
+        private final Map<String, MicroflowCallPlan> plans = new ConcurrentHashMap<>();
+
+        PlanCache(long modelVersion) {
+            this.modelVersion = modelVersion;
+        }
+    }
+}
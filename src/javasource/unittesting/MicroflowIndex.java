@@ -0,0 +1,115 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.mendix.core.Core;
+
+/**
+ * Index of the microflow names in the model, grouped per module and sorted on
+ * their lower case name, so microflows can be looked up by prefix without
+ * scanning all microflows. The index is built once per model version; see
+ * {@link ModelUpdateSubscriber#getModelVersion()}, and rebuilt when all tests
+ * are discovered.
+ */
+public class MicroflowIndex {
+    private static volatile MicroflowIndex current;
+
+    private final long modelVersion;
+    private final Set<String> microflowNames;
+    private final Set<String> modules = new TreeSet<>();
+    private final Map<String, NavigableMap<String, String>> microflowsByModule = new HashMap<>();
+
+    public MicroflowIndex(long modelVersion, Set<String> microflowNames) {
+        this.modelVersion = modelVersion;
+        this.microflowNames = new HashSet<>(microflowNames);
+
+        for (String name : microflowNames) {
+            int separator = name.indexOf('.');
+            String module = separator < 0 ? name : name.substring(0, separator);
+
+            modules.add(module);
+            microflowsByModule.computeIfAbsent(module.toLowerCase(), m -> new TreeMap<>())
+                    .put(name.toLowerCase(), name);
+        }
+    }
+
+    /**
+     * @return the index of the current model, which is rebuilt after a model update
+     */
+    public static MicroflowIndex get() {
+        long modelVersion = ModelUpdateSubscriber.getInstance().getModelVersion();
+
+        MicroflowIndex index = current;
+        if (index == null || index.modelVersion != modelVersion) {
+            index = new MicroflowIndex(modelVersion, Core.getMicroflowNames());
+            current = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Rebuilds the index from the microflows in the runtime, also when no model
+     * update was seen since it was last built.
+     *
+     * @return the rebuilt index
+     */
+    public static MicroflowIndex rebuild() {
+        MicroflowIndex index = new MicroflowIndex(ModelUpdateSubscriber.getInstance().getModelVersion(),
+                Core.getMicroflowNames());
+        current = index;
+
+        return index;
+    }
+
+    public long getModelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * @return the names of all modules that contain at least one microflow
+     */
+    public Set<String> getModules() {
+        return Collections.unmodifiableSet(modules);
+    }
+
+    /**
+     * @return the names of all microflows of the module, sorted ignoring case
+     */
+    public Collection<String> getMicroflows(String module) {
+        NavigableMap<String, String> microflows = microflowsByModule.get(module.toLowerCase());
+        return microflows == null ? Collections.emptyList() : Collections.unmodifiableCollection(microflows.values());
+    }
+
+    public boolean contains(String microflowName) {
+        return microflowNames.contains(microflowName);
+    }
+
+    /**
+     * @return the microflows of the module whose name (without the module)
+     *         starts with one of the given prefixes, ignoring case, sorted on name
+     */
+    public List<String> findByPrefix(String module, String... prefixes) {
+        NavigableMap<String, String> microflows = microflowsByModule.get(module.toLowerCase());
+        if (microflows == null)
+            return new ArrayList<>();
+
+        Set<String> result = new TreeSet<>();
+        for (String prefix : prefixes) {
+            String from = (module + "." + prefix).toLowerCase();
+            result.addAll(microflows.subMap(from, true, from + Character.MAX_VALUE, false).values());
+        }
+
+        return new ArrayList<>(result);
+    }
+}
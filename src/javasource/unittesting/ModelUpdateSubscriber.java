@@ -1,5 +1,12 @@
 package unittesting;
 
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.mendix.core.Core;
 import com.mendix.logging.ILogNode;
 import com.mendix.logging.LogLevel;
@@ -9,6 +16,11 @@ import com.mendix.logging.LogSubscriber;
 public class ModelUpdateSubscriber extends LogSubscriber {
     private static ModelUpdateSubscriber instance = null;
     private boolean refreshRequired = false;
+    private volatile boolean rediscoveryEnabled = true;
+    private final AtomicLong modelVersion = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(new WorkerPools.WorkerThreadFactory("UnitTestRunner-rediscovery"));
+    private ScheduledFuture<?> pendingRediscovery;
 
     private static final ILogNode LOG = ConfigurationManager.LOG;
     private static final String LOG_NODE = "Core";
@@ -39,11 +51,53 @@ public class ModelUpdateSubscriber extends LogSubscriber {
         this.refreshRequired = refreshRequired;
     }
 
+    /**
+     * Switches the rediscovery of tests after a model update on or off, for
+     * instance while testing this subscriber itself. It is on by default.
+     */
+    public void setRediscoveryEnabled(boolean rediscoveryEnabled) {
+        this.rediscoveryEnabled = rediscoveryEnabled;
+    }
+
+    /**
+     * @return a number that is incremented on every model update, so caches
+     *         derived from the model can tell whether they are still current
+     */
+    public long getModelVersion() {
+        return modelVersion.get();
+    }
+
     @Override
     public void processMessage(LogMessage logMessage) {
         if (MODEL_UPDATE_MESSAGE.equals(logMessage.message)) {
             LOG.debug("Model has been updated; require refresh of unit tests");
+            modelVersion.incrementAndGet();
+            JavaTestDiscovery.invalidate();
             this.setRefreshRequired(true);
+            scheduleRediscovery();
         }
     }
+
+    /**
+     * Rediscovers the tests of changed modules after a delay. A model update
+     * within the delay postpones the rediscovery, so successive updates are
+     * handled at once.
+     */
+    private synchronized void scheduleRediscovery() {
+        long delay = ConfigurationManager.getRediscoveryDelay();
+        if (delay < 0 || !rediscoveryEnabled || !ConfigurationManager.isEnabled())
+            return;
+
+        if (pendingRediscovery != null)
+            pendingRediscovery.cancel(false);
+
+        pendingRediscovery = scheduler.schedule(() -> {
+            try {
+                Set<String> changedModules = TestManager.instance().findChangedTests(Core.createSystemContext());
+                TestWatcher.testsRediscovered(changedModules);
+            } catch (Exception e) {
+                LOG.warn("Unable to rediscover unit tests after model update: " + e.getMessage(), e);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
 }
@@ -0,0 +1,103 @@
+package unittesting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import com.mendix.logging.ILogNode;
+
+import unittesting.proxies.constants.Constants;
+
+/**
+ * Fingerprints of the tests of each module, based on the names of its
+ * microflows and the CRCs of its class files in the project jar. Comparing two
+ * sets of fingerprints tells which modules need to be rediscovered.
+ *
+ * The runtime does not expose the contents of microflows, so changing the body
+ * of an existing microflow does not change the fingerprint of its module.
+ */
+public class ModuleFingerprints {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private final Map<String, Long> fingerprints;
+
+    private ModuleFingerprints(Map<String, Long> fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+
+    public static ModuleFingerprints empty() {
+        return new ModuleFingerprints(new HashMap<>());
+    }
+
+    /**
+     * @param fingerprints the fingerprint of each module
+     */
+    public static ModuleFingerprints of(Map<String, Long> fingerprints) {
+        return new ModuleFingerprints(new HashMap<>(fingerprints));
+    }
+
+    public static ModuleFingerprints compute(Collection<String> modules) {
+        MicroflowIndex microflowIndex = MicroflowIndex.get();
+        JavaTestIndex testIndex = null;
+
+        if (Constants.getFindJUnitTests()) {
+            try {
+                testIndex = JavaTestDiscovery.getTestIndex();
+            } catch (IOException e) {
+                LOG.warn("Unable to read JUnit test index for module fingerprints: " + e.getMessage());
+            }
+        }
+
+        Map<String, Long> fingerprints = new HashMap<>();
+        for (String module : modules) {
+            CRC32 crc = new CRC32();
+            for (String microflow : microflowIndex.getMicroflows(module)) {
+                crc.update(microflow.getBytes(StandardCharsets.UTF_8));
+                crc.update('\n');
+            }
+
+            if (testIndex != null)
+                crc.update(Long.toString(testIndex.getPackageCrc(module)).getBytes(StandardCharsets.UTF_8));
+
+            fingerprints.put(module, crc.getValue());
+        }
+
+        return new ModuleFingerprints(fingerprints);
+    }
+
+    public boolean isEmpty() {
+        return fingerprints.isEmpty();
+    }
+
+    /**
+     * @return the modules these fingerprints cover
+     */
+    public Set<String> getModules() {
+        return new TreeSet<>(fingerprints.keySet());
+    }
+
+    /**
+     * @return the modules that were added, removed or changed compared to the
+     *         previous fingerprints
+     */
+    public Set<String> getChangedModules(ModuleFingerprints previous) {
+        Set<String> changedModules = new HashSet<>();
+
+        for (Map.Entry<String, Long> fingerprint : fingerprints.entrySet())
+            if (!Objects.equals(fingerprint.getValue(), previous.fingerprints.get(fingerprint.getKey())))
+                changedModules.add(fingerprint.getKey());
+
+        for (String module : previous.fingerprints.keySet())
+            if (!fingerprints.containsKey(module))
+                changedModules.add(module);
+
+        return changedModules;
+    }
+}
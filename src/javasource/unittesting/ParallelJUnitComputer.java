@@ -0,0 +1,125 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.junit.runner.Computer;
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+import org.junit.runners.model.RunnerScheduler;
+
+import com.mendix.logging.ILogNode;
+
+/**
+ * Runs JUnit test classes, and optionally the methods within a class, on a
+ * bounded number of workers. Like JUnit's ParallelComputer, but without an
+ * unbounded thread pool.
+ *
+ * The parallelism limits the number of tests running at the same time, also
+ * when methods run in parallel: the methods of all classes then share a single
+ * pool and set of permits, instead of a pool per class.
+ */
+public class ParallelJUnitComputer extends Computer {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private final int parallelism;
+    private final boolean parallelMethods;
+    private final ExecutorService methodExecutor;
+    private final Semaphore methodPermits;
+
+    public ParallelJUnitComputer(int parallelism, boolean parallelMethods) {
+        this.parallelism = Math.max(1, parallelism);
+        this.parallelMethods = parallelMethods;
+        this.methodExecutor = parallelMethods ? WorkerPools.newPool(this.parallelism, "UnitTestRunner-junit-method")
+                : null;
+        this.methodPermits = new Semaphore(this.parallelism);
+    }
+
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        Runner suite = super.getSuite(builder, classes);
+
+        // The suite finishes last, so it shuts down the pools of the classes and of their methods
+        List<ExecutorService> executors = new ArrayList<>();
+        executors.add(WorkerPools.newPool(parallelism, "UnitTestRunner-junit"));
+        if (methodExecutor != null)
+            executors.add(methodExecutor);
+
+        return parallelize(suite, new BoundedScheduler(executors.get(0), new Semaphore(parallelism), executors));
+    }
+
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        Runner runner = super.getRunner(builder, testClass);
+        if (!parallelMethods)
+            return runner;
+
+        return parallelize(runner, new BoundedScheduler(methodExecutor, methodPermits, Collections.emptyList()));
+    }
+
+    private static Runner parallelize(Runner runner, BoundedScheduler scheduler) {
+        if (runner instanceof ParentRunner)
+            ((ParentRunner<?>) runner).setScheduler(scheduler);
+        else
+            scheduler.shutdown();
+
+        return runner;
+    }
+
+    private static class BoundedScheduler implements RunnerScheduler {
+        private final ExecutorService executor;
+        private final Semaphore permits;
+        private final List<ExecutorService> ownedExecutors;
+        private final List<Future<?>> futures = new ArrayList<>();
+
+        /**
+         * @param ownedExecutors the executors to shut down when finished
+         */
+        BoundedScheduler(ExecutorService executor, Semaphore permits, List<ExecutorService> ownedExecutors) {
+            this.executor = executor;
+            this.permits = permits;
+            this.ownedExecutors = ownedExecutors;
+        }
+
+        @Override
+        public void schedule(Runnable childStatement) {
+            futures.add(executor.submit(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    childStatement.run();
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+
+        @Override
+        public void finished() {
+            try {
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        // JUnit reports failures of tests to the listeners itself
+                        LOG.error("Parallel JUnit test failed: " + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                shutdown();
+            }
+        }
+
+        void shutdown() {
+            ownedExecutors.forEach(ExecutorService::shutdownNow);
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class RemoteApiServlet extends RequestHandler {
 	private static final Object COMMAND_START = "start";
 	private static final Object COMMAND_STATUS = "status";
 	private static final String PARAM_PASSWORD = "password";
+	private static final String PARAM_FORCE = "force";
 
 	private final String password;
 	private boolean detectedUnitTests = false;
@@ -104,7 +105,7 @@ public class RemoteApiServlet extends RequestHandler {
 		}
 
 		LOG.info("[remote api] starting new test run");
-		testSuiteRunner = new TestSuiteRunner();
+		testSuiteRunner = new TestSuiteRunner(input.optBoolean(PARAM_FORCE, false));
 
 		Thread t = new Thread() {
 			@Override
@@ -139,10 +140,15 @@ public class RemoteApiServlet extends RequestHandler {
 		boolean finished = false;
 		long startTime = System.currentTimeMillis();
 		long totalTime = -1;
+		final boolean force;
+
+		TestSuiteRunner(boolean force) {
+			this.force = force;
+		}
 
 		public void run() {
 			try {
-				TestManager.instance().runTestSuites();
+				TestManager.instance().runTestSuites(force);
 			} catch (CoreException e) {
 				LOG.error("[remote api] error while running test suite: " + e.getMessage(), e);
 			} finally {
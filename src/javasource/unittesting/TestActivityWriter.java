@@ -0,0 +1,248 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import com.mendix.core.Core;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.TestActivity;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Persists the activities collected during microflow tests on a background
+ * thread, so running a test never waits for its activities to be written.
+ * Activities of finished tests are queued and committed in large batches.
+ * Closing the writer waits until everything that was queued is written.
+ *
+ * A batch that fails is retried test by test, each in its own transaction.
+ * Tests whose activities still can not be written get the failure added to
+ * their result message when the writer is closed.
+ */
+public class TestActivityWriter implements AutoCloseable {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final long POLL_INTERVAL_MS = 100L;
+    private static final int TESTS_PER_QUERY = 50;
+
+    private final BlockingQueue<PendingActivities> queue = new LinkedBlockingQueue<>();
+    private final Queue<PendingActivities> failed = new ConcurrentLinkedQueue<>();
+    private final UnitTestResultSink resultSink;
+    private final int batchSize;
+    private final BiConsumer<IContext, List<IMendixObject>> committer;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    /**
+     * @param resultSink the sink of the run, which stores the tests whose
+     *                   activities could not be written
+     */
+    public TestActivityWriter(UnitTestResultSink resultSink) {
+        this(resultSink, ConfigurationManager.getResultBatchSize());
+    }
+
+    public TestActivityWriter(UnitTestResultSink resultSink, int batchSize) {
+        this(resultSink, batchSize, TestActivityWriter::commitInTransaction);
+    }
+
+    /**
+     * @param committer commits the activities of a batch, or of a single test
+     *                  when the batch is retried, and throws when that fails
+     */
+    public TestActivityWriter(UnitTestResultSink resultSink, int batchSize,
+            BiConsumer<IContext, List<IMendixObject>> committer) {
+        this.resultSink = resultSink;
+        this.batchSize = Math.max(1, batchSize);
+        this.committer = committer;
+        this.thread = new Thread(this::run, "UnitTestRunner-activities");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Deletes the activities of all tests in the suite, in batches.
+     */
+    public static void deleteTestActivities(IContext context, TestSuite testSuite) {
+        StringBuilder query = new StringBuilder();
+        query.append(String.format("//%s", TestActivity.entityName));
+        query.append(String.format("[%s/%s/%s=$TestSuite]", TestActivity.MemberNames.TestActivity_UnitTest,
+                UnitTest.entityName, UnitTest.MemberNames.UnitTest_TestSuite));
+
+        deleteInBatches(context, query.toString(), "TestSuite", testSuite.getMendixObject().getId().toLong());
+    }
+
+    public static void deleteTestActivities(IContext context, UnitTest test) {
+        StringBuilder query = new StringBuilder();
+        query.append(String.format("//%s", TestActivity.entityName));
+        query.append(String.format("[%s=$UnitTest]", TestActivity.MemberNames.TestActivity_UnitTest));
+
+        deleteInBatches(context, query.toString(), "UnitTest", test.getMendixObject().getId().toLong());
+    }
+
+    /**
+     * Deletes the activities of the given tests, in batches.
+     */
+    public static void deleteTestActivities(IContext context, Collection<UnitTest> tests) {
+        List<UnitTest> testList = new ArrayList<>(tests);
+
+        for (int i = 0; i < testList.size(); i += TESTS_PER_QUERY) {
+            StringBuilder query = new StringBuilder();
+            query.append(String.format("//%s", TestActivity.entityName));
+            query.append(testList.subList(i, Math.min(i + TESTS_PER_QUERY, testList.size())).stream()
+                    .map(test -> String.format("%s=%d", TestActivity.MemberNames.TestActivity_UnitTest,
+                            test.getMendixObject().getId().toLong()))
+                    .collect(Collectors.joining(" or ", "[", "]")));
+
+            deleteInBatches(context, query.toString());
+        }
+    }
+
+    private static void deleteInBatches(IContext context, String query) {
+        int batchSize = ConfigurationManager.getResultBatchSize();
+        List<IMendixObject> activities;
+
+        do {
+            activities = Core.createXPathQuery(query).setAmount(batchSize).execute(context);
+            if (!activities.isEmpty())
+                Core.delete(context, activities);
+        } while (activities.size() == batchSize);
+    }
+
+    private static void deleteInBatches(IContext context, String query, String variable, long id) {
+        int batchSize = ConfigurationManager.getResultBatchSize();
+        List<IMendixObject> activities;
+
+        do {
+            activities = Core.createXPathQuery(query).setVariable(variable, id).setAmount(batchSize).execute(context);
+            if (!activities.isEmpty())
+                Core.delete(context, activities);
+        } while (activities.size() == batchSize);
+    }
+
+    /**
+     * Queues the activities collected by the execution context of the given test.
+     * The execution context should not be changed afterwards.
+     */
+    public void submit(UnitTest test, TestExecutionContext executionContext) {
+        if (closed)
+            throw new IllegalStateException("Test activity writer is already closed");
+
+        queue.add(new PendingActivities(test, executionContext));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while waiting for test activities to be written");
+        }
+
+        for (PendingActivities pending : failed) {
+            String resultMessage = pending.test.getResultMessage();
+            String failure = "Unable to store test activities: " + pending.failure;
+            pending.test.setResultMessage(
+                    resultMessage == null || resultMessage.isEmpty() ? failure : resultMessage + "\n" + failure);
+            resultSink.add(pending.test);
+        }
+    }
+
+    private void run() {
+        IContext context = Core.createSystemContext();
+        List<PendingActivities> batch = new ArrayList<>();
+
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingActivities first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(context, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Failed to write test activities: " + e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(IContext context, List<PendingActivities> batch) {
+        try {
+            commit(context, batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+
+            LOG.warn("Failed to write the activities of " + batch.size() + " tests, retrying them one by one: "
+                    + e.getMessage());
+            for (PendingActivities pending : batch) {
+                try {
+                    commit(context, Collections.singletonList(pending));
+                } catch (RuntimeException retryException) {
+                    fail(pending, retryException);
+                }
+            }
+        }
+    }
+
+    private void fail(PendingActivities pending, RuntimeException e) {
+        LOG.error("Failed to write the activities of test " + pending.test.getName() + ": " + e.getMessage(), e);
+        pending.failure = e.getMessage();
+        failed.add(pending);
+    }
+
+    private void commit(IContext context, List<PendingActivities> batch) {
+        List<IMendixObject> activities = new ArrayList<>();
+        for (PendingActivities pending : batch)
+            activities.addAll(pending.executionContext.createTestActivities(context, pending.test));
+
+        if (activities.isEmpty())
+            return;
+
+        LOG.trace("Committing " + activities.size() + " test activities");
+        committer.accept(context, activities);
+    }
+
+    private static void commitInTransaction(IContext context, List<IMendixObject> activities) {
+        context.startTransaction();
+        try {
+            Core.commit(context, activities);
+            context.endTransaction();
+        } finally {
+            if (context.isInTransaction())
+                context.rollbackTransaction();
+        }
+    }
+
+    private static class PendingActivities {
+        private final UnitTest test;
+        private final TestExecutionContext executionContext;
+        private String failure;
+
+        PendingActivities(UnitTest test, TestExecutionContext executionContext) {
+            this.test = test;
+            this.executionContext = executionContext;
+        }
+    }
+}
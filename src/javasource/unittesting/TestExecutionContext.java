@@ -6,7 +6,6 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
-import com.mendix.core.Core;
 import com.mendix.logging.ILogNode;
 import com.mendix.systemwideinterfaces.core.IContext;
 import com.mendix.systemwideinterfaces.core.IMendixObject;
@@ -105,16 +104,6 @@ public class TestExecutionContext {
         }
     }
 
-    public void persistTestActivities(UnitTest test) {
-        IContext systemContext = Core.createSystemContext();
-        systemContext.startTransaction();
-
-        List<IMendixObject> activities = this.createTestActivities(systemContext, test);
-        Core.commit(systemContext, activities);
-
-        systemContext.endTransaction();
-    }
-
     public List<IMendixObject> createTestActivities(IContext context, UnitTest test) {
         List<IMendixObject> activities = new ArrayList<>();
 
@@ -207,19 +196,6 @@ public class TestExecutionContext {
         return stepActivity.getMendixObject();
     }
 
-    public void clearTestActivities(UnitTest test) {
-        IContext systemContext = Core.createSystemContext();
-
-        StringBuilder query = new StringBuilder();
-        query.append(String.format("//%s", TestActivity.entityName));
-        query.append(String.format("[%s=$UnitTest]", TestActivity.MemberNames.TestActivity_UnitTest));
-
-        List<IMendixObject> activities = Core.createXPathQuery(query.toString())
-                .setVariable("UnitTest", test.getMendixObject().getId().toLong()).execute(systemContext);
-
-        Core.delete(systemContext, activities);
-    }
-
     private int getNextSequence() {
         return activitySequence++;
     }
@@ -0,0 +1,30 @@
+package unittesting;
+
+/**
+ * Keeps track of the execution context of every running test. A test microflow
+ * is executed on the thread that started it, so the Java actions used inside
+ * test microflows resolve their execution context through the current thread.
+ */
+public class TestExecutionContextRegistry {
+    private static final ThreadLocal<TestExecutionContext> contextByThread = new ThreadLocal<>();
+
+    private TestExecutionContextRegistry() {
+    }
+
+    public static TestExecutionContext bind(TestExecutionContext executionContext) {
+        contextByThread.set(executionContext);
+        return executionContext;
+    }
+
+    public static TestExecutionContext current() {
+        TestExecutionContext executionContext = contextByThread.get();
+        if (executionContext == null)
+            throw new IllegalStateException("No execution context available");
+
+        return executionContext;
+    }
+
+    public static void unbind() {
+        contextByThread.remove();
+    }
+}
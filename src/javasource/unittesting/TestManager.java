@@ -1,24 +1,31 @@
 package unittesting;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.junit.runner.Description;
-import org.junit.runner.JUnitCore;
-import org.junit.runner.Request;
 
 import com.mendix.core.Core;
 import com.mendix.core.CoreException;
-import com.mendix.core.actionmanagement.MicroflowCallBuilder;
 import com.mendix.logging.ILogNode;
 import com.mendix.systemwideinterfaces.core.IContext;
-import com.mendix.systemwideinterfaces.core.IDataType;
+import com.mendix.systemwideinterfaces.core.IMendixIdentifier;
 import com.mendix.systemwideinterfaces.core.IMendixObject;
 
 import unittesting.proxies.ENUM_UnitTestResult;
@@ -48,13 +55,11 @@ public class TestManager {
 	}
 
 	private static final ILogNode LOG = ConfigurationManager.LOG;
-	private static final String TEST_CONTEXT_PARAM_NAME = "UnitTestContext";
+	private static final int RESET_SUITES_PER_QUERY = 50;
 
 	private static TestManager instance;
 
-	private IContext setupContext;
-	private TestExecutionContext executionContext;
-	private String lastStep; // Only applicable for JUnit tests
+	private ModuleFingerprints discoveredModules = ModuleFingerprints.empty();
 
 	public static TestManager instance() {
 		if (instance == null)
@@ -62,14 +67,24 @@ public class TestManager {
 		return instance;
 	}
 
+	/**
+	 * @return the execution context of the test running on the current thread
+	 * @see TestExecutionContextRegistry#current()
+	 */
 	public TestExecutionContext executionContext() {
-		if (executionContext == null)
-			throw new IllegalStateException("No execution context available");
+		return TestExecutionContextRegistry.current();
+	}
 
-		return executionContext;
+	public void runTest(IContext context, UnitTest unitTest) throws ClassNotFoundException, CoreException {
+		runTest(context, unitTest, false);
 	}
 
-	public synchronized void runTest(IContext context, UnitTest unitTest) throws ClassNotFoundException, CoreException {
+	/**
+	 * @param force run JUnit tests even if the result cache tells they passed
+	 *              before and did not change since
+	 */
+	public synchronized void runTest(IContext context, UnitTest unitTest, boolean force)
+			throws ClassNotFoundException, CoreException {
 		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
 
 		TestSuite testSuite = unitTest.getUnitTest_TestSuite();
@@ -78,11 +93,15 @@ public class TestManager {
 		 * Is Mf
 		 */
 		if (unitTest.getIsMf()) {
-			try {
-				runMfSetup(testSuite);
-				runMicroflowTest(unitTest.getName(), unitTest);
+			IContext setupContext = null;
+			try (UnitTestResultSink resultSink = new UnitTestResultSink(context);
+					TestActivityWriter activityWriter = new TestActivityWriter(resultSink)) {
+				TestActivityWriter.deleteTestActivities(context, unitTest);
+
+				setupContext = runMfSetup(testSuite);
+				runMicroflowTest(unitTest.getName(), unitTest, testSuite, setupContext, resultSink, activityWriter);
 			} finally {
-				runMfTearDown(testSuite);
+				runMfTearDown(testSuite, setupContext);
 			}
 		}
 
@@ -90,42 +109,217 @@ public class TestManager {
 		 * Is java
 		 */
 		else {
-			String[] parts = unitTest.getName().split("/");
-			Request request;
-			if (parts.length == 1) // class-scale test run
-				request = Request.aClass(Class.forName(parts[0]));
-			else if (parts.length == 2) // method-scale test run
-				request = Request.method(Class.forName(parts[0]), parts[1]);
-			else
-				throw new CoreException("Invalid test specification: " + unitTest.getName()
-						+ "\nTest method run should be defined in either form $testClass or $testClass/$testMethod.");
-
-			JUnitCore junit = new JUnitCore();
-			junit.addListener(new UnitTestRunListener(context, testSuite));
+			String className = unitTest.getName().split("/")[0];
 
-			junit.run(request);
+			if (!force && JUnitResultCache.isEnabled() && JUnitResultCache.instance().isUnchangedSincePass(className)) {
+				LOG.info("Skipping unchanged JUnit test " + unitTest.getName() + " that passed before");
+				JUnitResultCache.markCached(unitTest);
+				unitTest.commit();
+			} else {
+				// Class-scale ($testClass) or method-scale ($testClass/$testMethod) test run
+				JavaTestExecutor.instance().run(context, testSuite, Collections.singletonList(unitTest.getName()));
+			}
 		}
 
 		updateTestSuiteCountersAndResult(context, testSuite, true);
 	}
 
-	private void runMfSetup(TestSuite testSuite) {
+	public void runTests(IContext context, List<UnitTest> unitTests) throws CoreException {
+		runTests(context, unitTests, false);
+	}
+
+	/**
+	 * Runs the given tests, grouped by test suite. The Setup and TearDown
+	 * microflows of a suite run once for all of its selected microflow tests,
+	 * which run in parallel when the suite allows it, and its selected JUnit tests
+	 * run in a single run per test engine. Suites are run like in
+	 * {@link #runTestSuites()}.
+	 *
+	 * @param force run JUnit tests even if the result cache tells they passed
+	 *              before and did not change since
+	 */
+	public synchronized void runTests(IContext context, List<UnitTest> unitTests, boolean force) throws CoreException {
+		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
+
+		Map<Long, List<UnitTest>> testsPerSuite = new HashMap<>();
+		List<IMendixIdentifier> testSuiteIds = new ArrayList<>();
+
+		for (UnitTest unitTest : unitTests) {
+			IMendixIdentifier testSuiteId = unitTest.getMendixObject().getValue(context,
+					UnitTest.MemberNames.UnitTest_TestSuite.toString());
+			if (testSuiteId == null) {
+				LOG.warn("Skipping unit test " + unitTest.getName() + " that is not part of a test suite");
+				continue;
+			}
+
+			testsPerSuite.computeIfAbsent(testSuiteId.toLong(), id -> {
+				testSuiteIds.add(testSuiteId);
+				return new ArrayList<>();
+			}).add(unitTest);
+		}
+
+		LOG.info("Starting testrun on " + unitTests.size() + " tests of " + testSuiteIds.size() + " suites");
+
+		new TestSuiteScheduler(ConfigurationManager.getSuiteParallelism()).run(testSuiteIds,
+				(suiteContext, testSuite) -> executeSelectedTests(suiteContext, testSuite,
+						testsPerSuite.get(testSuite.getMendixObject().getId().toLong()), force));
+
+		LOG.info("Finished testrun on " + unitTests.size() + " tests");
+	}
+
+	/**
+	 * Runs the selected tests of a single suite. Only the results of those tests
+	 * are cleared; the counters and result of the suite are recomputed from all
+	 * of its tests afterwards, without querying them again.
+	 */
+	private void executeSelectedTests(IContext context, TestSuite testSuite, List<UnitTest> selectedTests,
+			boolean force) throws CoreException {
+		LOG.info("Starting testrun on " + selectedTests.size() + " tests of " + testSuite.getModule());
+
+		UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
+		List<UnitTest> mfTests = new ArrayList<>();
+		List<UnitTest> javaTests = new ArrayList<>();
+
+		for (UnitTest selectedTest : selectedTests) {
+			boolean isMf = Boolean.TRUE.equals(selectedTest.getIsMf());
+			Optional<UnitTest> unitTest = unitTests.find(selectedTest.getName(), isMf);
+
+			if (!unitTest.isPresent()) {
+				LOG.warn("Skipping unit test " + selectedTest.getName() + " that no longer exists");
+			} else if (!isMf && unitTest.get().getName().split("/").length > 2) {
+				LOG.warn("Skipping unit test with invalid test specification: " + unitTest.get().getName());
+			} else {
+				unitTest.get().setResult(null);
+				(isMf ? mfTests : javaTests).add(unitTest.get());
+			}
+		}
+
+		/**
+		 * Reset state of the selected tests only
+		 */
+		List<IMendixObject> mxObjects = new ArrayList<>();
+		mfTests.forEach(unitTest -> mxObjects.add(unitTest.getMendixObject()));
+		javaTests.forEach(unitTest -> mxObjects.add(unitTest.getMendixObject()));
+		commitInBatches(context, mxObjects);
+
+		TestSuiteCounters.count(unitTests.getUnitTests()).applyTo(testSuite);
+		testSuite.setResult(ENUM_UnitTestResult._1_Running);
+		testSuite.commit();
+
+		if (!javaTests.isEmpty())
+			runSelectedJavaTests(context, unitTests, javaTests, force);
+
+		if (!mfTests.isEmpty()) {
+			try (UnitTestResultSink resultSink = new UnitTestResultSink(context);
+					TestActivityWriter activityWriter = new TestActivityWriter(resultSink)) {
+				TestActivityWriter.deleteTestActivities(context, mfTests);
+
+				List<String> mfnames = mfTests.stream().map(UnitTest::getName).sorted().collect(Collectors.toList());
+				runMicroflowTests(unitTests, mfnames, resultSink, activityWriter);
+			}
+		}
+
+		/**
+		 * Aggregate
+		 */
+		TestSuiteCounters.count(unitTests.getUnitTests()).applyTo(testSuite);
+		testSuite.commit();
+
+		LOG.info("Finished testrun on " + selectedTests.size() + " tests of " + testSuite.getModule());
+	}
+
+	/**
+	 * Runs the selected JUnit tests of a suite, one run per test engine. A test
+	 * named after a class runs all tests of that class.
+	 */
+	private void runSelectedJavaTests(IContext context, UnitTestIndex unitTests, List<UnitTest> javaTests,
+			boolean force) {
+		TestSuite testSuite = unitTests.getTestSuite();
+		boolean useResultCache = JUnitResultCache.isEnabled();
+
+		Map<String, List<UnitTest>> testsPerClass = new LinkedHashMap<>();
+		for (UnitTest unitTest : javaTests)
+			testsPerClass.computeIfAbsent(unitTest.getName().split("/")[0], c -> new ArrayList<>()).add(unitTest);
+
+		Map<Class<?>, Set<String>> testMethods = new LinkedHashMap<>();
+		List<IMendixObject> reportedTests = new ArrayList<>();
+
+		for (Map.Entry<String, List<UnitTest>> classTests : testsPerClass.entrySet()) {
+			String className = classTests.getKey();
+
+			if (useResultCache && !force && JUnitResultCache.instance().isUnchangedSincePass(className)) {
+				LOG.info("Skipping unchanged JUnit tests of " + className + " that passed before");
+				for (UnitTest unitTest : classTests.getValue()) {
+					JUnitResultCache.markCached(unitTest);
+					reportedTests.add(unitTest.getMendixObject());
+				}
+				continue;
+			}
+
+			try {
+				Set<String> methods = new LinkedHashSet<>();
+				boolean allMethods = false;
+
+				for (UnitTest unitTest : classTests.getValue()) {
+					String[] parts = unitTest.getName().split("/");
+					if (parts.length == 2)
+						methods.add(parts[1]);
+					else
+						allMethods = true;
+				}
+
+				testMethods.put(Class.forName(className), allMethods ? Collections.emptySet() : methods);
+			} catch (ClassNotFoundException e) {
+				LOG.error("Unable to find JUnit test class " + className + ": " + e.getMessage(), e);
+				for (UnitTest unitTest : classTests.getValue()) {
+					unitTest.setResult(ENUM_UnitTestResult._2_Failed);
+					unitTest.setResultMessage("JUnit test class not found: " + className);
+					unitTest.setLastRun(new Date());
+					reportedTests.add(unitTest.getMendixObject());
+				}
+			}
+		}
+
+		if (!reportedTests.isEmpty())
+			commitInBatches(context, reportedTests);
+
+		for (Map.Entry<JavaTestEngine, Map<Class<?>, Set<String>>> engineTests : JavaTestEngines
+				.groupByEngine(testMethods).entrySet())
+			engineTests.getKey().run(context, testSuite, unitTests, engineTests.getValue());
+
+		if (useResultCache && !testMethods.isEmpty()) {
+			// Only classes of which all tests ran can be remembered as passed
+			List<Class<?>> completeClasses = new ArrayList<>();
+			List<Class<?>> partialClasses = new ArrayList<>();
+			testMethods.forEach((testClass, methods) -> (methods.isEmpty() ? completeClasses : partialClasses)
+					.add(testClass));
+
+			JUnitResultCache.instance().recordResults(unitTests, completeClasses.toArray(new Class<?>[0]));
+			JUnitResultCache.instance().forget(partialClasses);
+		}
+	}
+
+	private IContext runMfSetup(TestSuite testSuite) {
 		if (hasMfSetup(testSuite)) {
 			try {
 				LOG.info("Running Setup microflow..");
 
-				setupContext = Core.createSystemContext();
+				IContext setupContext = Core.createSystemContext();
 				setupContext.startTransaction();
 				LOG.trace("Start transaction for setup");
 				Core.microflowCall(testSuite.getModule() + ".Setup").execute(setupContext);
+
+				return setupContext;
 			} catch (Exception e) {
 				LOG.error("Exception during Setup microflow: " + e.getMessage(), e);
 				throw new RuntimeException(e);
 			}
 		}
+
+		return null;
 	}
 
-	private void runMfTearDown(TestSuite testSuite) {
+	private void runMfTearDown(TestSuite testSuite, IContext setupContext) {
 		IContext tearDownContext = setupContext;
 
 		if (hasMfTearDown(testSuite)) {
@@ -156,12 +350,17 @@ public class TestManager {
 				tearDownContext.endTransaction();
 			}
 		}
+	}
 
-		// Make sure we clean setupContext after running this test/suite
-		setupContext = null;
+	public void runTestSuites() throws CoreException {
+		runTestSuites(false);
 	}
 
-	public synchronized void runTestSuites() throws CoreException {
+	/**
+	 * @param force run JUnit tests even if the result cache tells they passed
+	 *              before and did not change since
+	 */
+	public synchronized void runTestSuites(boolean force) throws CoreException {
 		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
 
 		LOG.info("Starting testrun on all suites");
@@ -170,22 +369,88 @@ public class TestManager {
 		IContext context = Core.createSystemContext();
 
 		List<IMendixObject> testSuites = Core.createXPathQuery("//" + TestSuite.entityName).execute(context);
+		resetTestSuites(testSuites);
 
-		for (IMendixObject suite : testSuites) {
-			suite.setValue(context, TestSuite.MemberNames.Result.toString(), null);
-		}
-		Core.commit(context, testSuites);
-
-		for (IMendixObject suite : testSuites) {
-			runTestSuite(context, TestSuite.load(context, suite.getId()));
-		}
+		// Every worker runs its suites in its own context without transaction
+		List<IMendixIdentifier> testSuiteIds = testSuites.stream().map(IMendixObject::getId)
+				.collect(Collectors.toList());
+		new TestSuiteScheduler(ConfigurationManager.getSuiteParallelism()).run(testSuiteIds,
+				(suiteContext, testSuite) -> executeTestSuite(suiteContext, testSuite, force));
 
 		LOG.info("Finished testrun on all suites");
 	}
 
-	public synchronized void runTestSuite(IContext context, TestSuite testSuite) throws CoreException {
+	public void runTestSuite(IContext context, TestSuite testSuite) throws CoreException {
+		runTestSuite(context, testSuite, false);
+	}
+
+	/**
+	 * @param force run JUnit tests even if the result cache tells they passed
+	 *              before and did not change since
+	 */
+	public synchronized void runTestSuite(IContext context, TestSuite testSuite, boolean force) throws CoreException {
 		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
 
+		resetTestSuites(Collections.singletonList(testSuite.getMendixObject()));
+		executeTestSuite(context, testSuite, force);
+	}
+
+	/**
+	 * Clears the result of the given suites and of all their tests before a run.
+	 * Only tests that still have a result are written, in batches, and all of it
+	 * happens in a single transaction.
+	 */
+	private void resetTestSuites(List<IMendixObject> testSuites) {
+		IContext context = Core.createSystemContext();
+		context.startTransaction();
+		LOG.trace("Start transaction for resetting test suites");
+
+		try {
+			for (IMendixObject suite : testSuites) {
+				suite.setValue(context, TestSuite.MemberNames.Result.toString(), null);
+			}
+			commitInBatches(context, testSuites);
+
+			for (int i = 0; i < testSuites.size(); i += RESET_SUITES_PER_QUERY) {
+				List<IMendixObject> suites = testSuites.subList(i, Math.min(i + RESET_SUITES_PER_QUERY, testSuites.size()));
+
+				StringBuilder query = new StringBuilder();
+				query.append(String.format("//%s", UnitTest.entityName));
+				query.append(String.format("[%s!=empty]", UnitTest.MemberNames.Result));
+				query.append(suites.stream()
+						.map(suite -> String.format("%s=%d", UnitTest.MemberNames.UnitTest_TestSuite, suite.getId().toLong()))
+						.collect(Collectors.joining(" or ", "[", "]")));
+
+				List<IMendixObject> unitTests = Core.createXPathQuery(query.toString()).execute(context);
+				for (IMendixObject unitTest : unitTests) {
+					unitTest.setValue(context, UnitTest.MemberNames.Result.toString(), null);
+				}
+				commitInBatches(context, unitTests);
+			}
+
+			context.endTransaction();
+			LOG.trace("End transaction for resetting test suites");
+		} catch (RuntimeException e) {
+			context.rollbackTransaction();
+			throw e;
+		}
+	}
+
+	private static void commitInBatches(IContext context, List<IMendixObject> mxObjects) {
+		int batchSize = ConfigurationManager.getResultBatchSize();
+
+		for (int i = 0; i < mxObjects.size(); i += batchSize) {
+			Core.commit(context, new ArrayList<>(mxObjects.subList(i, Math.min(i + batchSize, mxObjects.size()))));
+		}
+	}
+
+	/**
+	 * Runs a single suite. Not synchronized, so {@link #runTestSuites()} can run
+	 * multiple suites at the same time; all state of a suite run is kept local to
+	 * the calling thread. The results of the suite's tests are expected to be
+	 * cleared by {@link #resetTestSuites(List)} beforehand.
+	 */
+	private void executeTestSuite(IContext context, TestSuite testSuite, boolean force) throws CoreException {
 		LOG.info("Starting testrun on " + testSuite.getModule());
 
 		/**
@@ -198,18 +463,7 @@ public class TestManager {
 		testSuite.setResult(ENUM_UnitTestResult._1_Running);
 		testSuite.commit();
 
-		StringBuilder query = new StringBuilder();
-		query.append(String.format("//%s", UnitTest.entityName));
-		query.append(String.format("[%s=$TestSuite]", UnitTest.MemberNames.UnitTest_TestSuite));
-
-		List<IMendixObject> unitTests = Core.createXPathQuery(query.toString())
-				.setVariable("TestSuite", testSuite.getMendixObject().getId().toLong()).execute(context);
-
-		for (IMendixObject mxObject : unitTests) {
-			UnitTest test = UnitTest.initialize(context, mxObject);
-			test.setResult(null);
-			test.commit();
-		}
+		UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
 
 		long start = System.currentTimeMillis();
 
@@ -218,39 +472,35 @@ public class TestManager {
 		 */
 		if (unittesting.proxies.constants.Constants.getFindJUnitTests()) {
 			Class<?>[] classes = null;
+			boolean useResultCache = JUnitResultCache.isEnabled();
 
 			try {
 				classes = JavaTestDiscovery.getUnitTestClasses(testSuite);
+
+				if (useResultCache)
+					classes = JUnitResultCache.instance().skipUnchangedClasses(context, testSuite, unitTests, classes,
+							force);
 			} catch (Exception e) {
 				LOG.error("Unable to find JUnit test classes or methods: " + e.getMessage(), e);
 			}
 
 			if (classes != null && classes.length > 0) {
-				JUnitCore junit = new JUnitCore();
-				junit.addListener(new UnitTestRunListener(context, testSuite));
-				junit.run(classes);
+				for (Map.Entry<JavaTestEngine, Class<?>[]> engineClasses : JavaTestEngines.groupByEngine(classes).entrySet())
+					engineClasses.getKey().run(context, testSuite, unitTests, engineClasses.getValue());
+
+				if (useResultCache)
+					JUnitResultCache.instance().recordResults(unitTests, classes);
 			}
 		}
 
 		/**
 		 * Run microflow tests
 		 */
-		try {
-			runMfSetup(testSuite);
-
-			List<String> mfnames = findMicroflowUnitTests(testSuite);
+		try (UnitTestResultSink resultSink = new UnitTestResultSink(context);
+				TestActivityWriter activityWriter = new TestActivityWriter(resultSink)) {
+			TestActivityWriter.deleteTestActivities(context, testSuite);
 
-			for (String mf : mfnames) {
-				if (runMicroflowTest(mf, getUnitTest(context, testSuite, mf, true), testSuite)) {
-					testSuite.setTestPassedCount(testSuite.getTestPassedCount() + 1);
-				} else {
-					testSuite.setTestFailedCount(testSuite.getTestFailedCount() + 1);
-				}
-				testSuite.commit();
-			}
-
-		} finally {
-			runMfTearDown(testSuite);
+			runMicroflowTests(unitTests, findMicroflowUnitTests(testSuite), resultSink, activityWriter);
 		}
 
 		/**
@@ -264,85 +514,147 @@ public class TestManager {
 		LOG.info("Finished testrun on " + testSuite.getModule());
 	}
 
-	public List<String> findMicroflowUnitTests(TestSuite testRun) {
-		List<String> microflowNames = new ArrayList<>();
+	/**
+	 * Runs the given microflow tests of a suite between a single run of its Setup
+	 * and TearDown microflows, in parallel when the suite allows it.
+	 */
+	private void runMicroflowTests(UnitTestIndex unitTests, List<String> mfnames, UnitTestResultSink resultSink,
+			TestActivityWriter activityWriter) throws CoreException {
+		TestSuite testSuite = unitTests.getTestSuite();
+		IContext setupContext = null;
 
-		if (testRun.getPrefix1() == null) {
-			testRun.setPrefix1("Test_");
-		}
-		if (testRun.getPrefix2() == null) {
-			testRun.setPrefix2("UT_");
+		try {
+			setupContext = runMfSetup(testSuite);
+
+			int parallelism = getMicroflowTestParallelism(testSuite);
+
+			if (parallelism > 1 && mfnames.size() > 1) {
+				runMicroflowTestsInParallel(unitTests, setupContext, mfnames, parallelism, resultSink, activityWriter);
+			} else {
+				for (String mf : mfnames) {
+					boolean passed = runMicroflowTest(mf, unitTests.get(mf, true), testSuite, setupContext,
+							resultSink, activityWriter);
+					updateTestSuiteCounters(testSuite, passed, resultSink);
+				}
+			}
+		} finally {
+			runMfTearDown(testSuite, setupContext);
 		}
+	}
 
-		String basename1 = (testRun.getModule() + "." + testRun.getPrefix1()).toLowerCase();
-		String basename2 = (testRun.getModule() + "." + testRun.getPrefix2()).toLowerCase();
+	private int getMicroflowTestParallelism(TestSuite testSuite) {
+		int parallelism = ConfigurationManager.getMicroflowTestParallelism(testSuite.getModule());
 
-		// Find microflow names
-		for (String mf : Core.getMicroflowNames())
-			if (mf.toLowerCase().startsWith(basename1) || mf.toLowerCase().startsWith(basename2))
-				microflowNames.add(mf);
+		if (parallelism > 1 && !testSuite.getAutoRollbackMFs()) {
+			LOG.debug("Running tests of " + testSuite.getModule()
+					+ " one after another, parallel execution requires AutoRollbackMFs");
+			return 1;
+		}
 
-		// Sort microflow names
-		Collections.sort(microflowNames);
-		return microflowNames;
+		return parallelism;
 	}
 
-	public boolean hasMfSetup(TestSuite testSuite) {
-		return Core.getMicroflowNames().contains(testSuite.getModule() + ".Setup");
-	}
+	/**
+	 * Runs the microflow tests of a suite on a bounded pool. Each test runs in its
+	 * own context and transaction, which is rolled back afterwards, so tests can
+	 * not observe each other. Counters are merged on the calling thread only.
+	 */
+	private void runMicroflowTestsInParallel(UnitTestIndex unitTests, IContext setupContext, List<String> mfnames,
+			int parallelism, UnitTestResultSink resultSink, TestActivityWriter activityWriter) throws CoreException {
+		TestSuite testSuite = unitTests.getTestSuite();
+		int workers = Math.min(parallelism, mfnames.size());
+		LOG.info("Running " + mfnames.size() + " microflow tests of " + testSuite.getModule() + " on " + workers
+				+ " workers");
 
-	public boolean hasMfTearDown(TestSuite testSuite) {
-		return Core.getMicroflowNames().contains(testSuite.getModule() + ".TearDown");
-	}
+		ExecutorService executor = WorkerPools.newPool(workers, "UnitTestRunner-" + testSuite.getModule());
+		Semaphore permits = new Semaphore(workers);
+		List<Future<Boolean>> results = new ArrayList<>();
 
-	private boolean hasTestContextInputParameter(String mf) {
-		if (!Core.getInputParameters(mf).containsKey(TEST_CONTEXT_PARAM_NAME))
-			return false;
+		try {
+			for (String mf : mfnames) {
+				// New tests are created and committed here, each worker changes its test through its own context
+				UnitTest test = unitTests.get(mf, true);
+				if (test.getMendixObject().isNew())
+					resultSink.add(test);
+				UnitTest workerTest = UnitTest.initialize(test.getContext().createClone(), test.getMendixObject());
+
+				permits.acquire();
+				results.add(executor.submit(() -> {
+					try {
+						return runMicroflowTest(mf, workerTest, testSuite, setupContext, resultSink, activityWriter);
+					} finally {
+						permits.release();
+					}
+				}));
+			}
 
-		IDataType dataType = Core.getInputParameters(mf).get(TEST_CONTEXT_PARAM_NAME);
-		return dataType.isMendixObject()
-				&& unittesting.proxies.UnitTestContext.getType().equals(dataType.getObjectType());
+			for (Future<Boolean> result : results) {
+				boolean passed;
+				try {
+					passed = result.get();
+				} catch (ExecutionException e) {
+					LOG.error("Unexpected error while running microflow test: " + e.getCause().getMessage(),
+							e.getCause());
+					passed = false;
+				}
+				updateTestSuiteCounters(testSuite, passed, resultSink);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CoreException("Interrupted while running microflow tests of " + testSuite.getModule(), e);
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 
-	public boolean validateTestMicroflow(String mf) {
-		if (Core.getReturnType(mf).getType() != IDataType.DataTypeEnum.Boolean
-				&& Core.getReturnType(mf).getType() != IDataType.DataTypeEnum.String
-				&& Core.getReturnType(mf).getType() != IDataType.DataTypeEnum.Nothing) {
-
-			LOG.warn("Invalid test microflow " + mf
-					+ ": Microflow should return either a boolean or a string or nothing at all");
-			return false;
+	private void updateTestSuiteCounters(TestSuite testSuite, boolean passed, UnitTestResultSink resultSink)
+			throws CoreException {
+		if (passed) {
+			testSuite.setTestPassedCount(testSuite.getTestPassedCount() + 1);
+		} else {
+			testSuite.setTestFailedCount(testSuite.getTestFailedCount() + 1);
 		}
+		resultSink.progress(testSuite);
+	}
 
-		if (Core.getInputParameters(mf).size() == 1 && hasTestContextInputParameter(mf)) {
-			LOG.trace("Identified parameter for unit test context in test microflow " + mf);
-		} else if (!Core.getInputParameters(mf).isEmpty()) {
-			LOG.warn("Invalid test microflow " + mf + ": Identified one or more invalid parameter(s)");
-			return false;
+	public List<String> findMicroflowUnitTests(TestSuite testRun) {
+		if (testRun.getPrefix1() == null) {
+			testRun.setPrefix1("Test_");
+		}
+		if (testRun.getPrefix2() == null) {
+			testRun.setPrefix2("UT_");
 		}
 
-		return true;
+		// Find microflow names, sorted on name
+		return MicroflowIndex.get().findByPrefix(testRun.getModule(), testRun.getPrefix1(), testRun.getPrefix2());
 	}
 
-	private MicroflowCallBuilder buildMicroflowCall(String mf, UnitTestContext unitTestContext) {
-		MicroflowCallBuilder builder = Core.microflowCall(mf);
+	public boolean hasMfSetup(TestSuite testSuite) {
+		return MicroflowIndex.get().contains(testSuite.getModule() + ".Setup");
+	}
 
-		if (hasTestContextInputParameter(mf))
-			builder = builder.withParam(TEST_CONTEXT_PARAM_NAME, unitTestContext.getMendixObject());
+	public boolean hasMfTearDown(TestSuite testSuite) {
+		return MicroflowIndex.get().contains(testSuite.getModule() + ".TearDown");
+	}
 
-		return builder;
+	public boolean validateTestMicroflow(String mf) {
+		return validateTestMicroflow(MicroflowCallPlan.get(mf));
 	}
 
-	private boolean runMicroflowTest(String mf, UnitTest test) throws CoreException {
-		/**
-		 * Prepare...
-		 */
-		TestSuite testSuite = test.getUnitTest_TestSuite();
+	private boolean validateTestMicroflow(MicroflowCallPlan plan) {
+		if (!plan.isValid()) {
+			LOG.warn("Invalid test microflow " + plan.getMicroflow() + ": " + plan.getValidationError());
+			return false;
+		}
+
+		if (plan.takesTestContext())
+			LOG.trace("Identified parameter for unit test context in test microflow " + plan.getMicroflow());
 
-		return runMicroflowTest(mf, test, testSuite);
+		return true;
 	}
 
-	private boolean runMicroflowTest(String mf, UnitTest test, TestSuite testSuite) {
+	private boolean runMicroflowTest(String mf, UnitTest test, TestSuite testSuite, IContext setupContext,
+			UnitTestResultSink resultSink, TestActivityWriter activityWriter) {
 		/**
 		 * Prepare...
 		 */
@@ -352,47 +664,48 @@ public class TestManager {
 		test.setResultMessage("");
 		test.setLastRun(new Date());
 
-		IContext mfContext = getMicroflowTestContext(testSuite);
+		IContext mfContext = getMicroflowTestContext(testSuite, setupContext);
 
 		mfContext.startTransaction();
 		LOG.trace("Start transaction for unit test");
 
-		executionContext = new TestExecutionContext();
-		executionContext().clearTestActivities(test);
+		TestExecutionContext executionContext = TestExecutionContextRegistry.bind(new TestExecutionContext());
 
 		long duration = 0L;
 		long startTimestamp = System.currentTimeMillis();
 
 		try {
-			if (!validateTestMicroflow(mf)) {
+			MicroflowCallPlan plan = MicroflowCallPlan.get(mf);
+
+			if (!validateTestMicroflow(plan)) {
 				test.setResult(ENUM_UnitTestResult._2_Failed);
-				commitSilent(test);
+				resultSink.add(test);
 
-				executionContext().collectStart(false, "Unable to start test, invalid microflow");
+				executionContext.collectStart(false, "Unable to start test, invalid microflow");
 				return false;
 			}
 
-			executionContext().collectStart(true, null);
+			executionContext.collectStart(true, null);
 			test.setResult(ENUM_UnitTestResult._1_Running);
-			commitSilent(test);
+			resultSink.add(test);
 
 			UnitTestContext unitTestContext = UnitTestContextManager.createUnitTestContext(mfContext, mf);
-			executionContext().setUnitTestContext(unitTestContext);
+			executionContext.setUnitTestContext(unitTestContext);
 
-			Object mfReturnValue = buildMicroflowCall(mf, unitTestContext).execute(mfContext);
+			Object mfReturnValue = plan.newCall(unitTestContext).execute(mfContext);
 			duration = System.currentTimeMillis() - startTimestamp;
 
 			boolean returnValueResult = mfReturnValue == null || Boolean.TRUE.equals(mfReturnValue) || "".equals(mfReturnValue);
 
 			if (returnValueResult) {
-				executionContext().collectEnd(true, null);
+				executionContext.collectEnd(true, null);
 			} else if (mfReturnValue instanceof String) {
-				executionContext().collectEnd(false, "Microflow returned string: " + mfReturnValue);
+				executionContext.collectEnd(false, "Microflow returned string: " + mfReturnValue);
 			} else if (mfReturnValue instanceof Boolean) {
-				executionContext().collectEnd(false, "Microflow returned false");
+				executionContext.collectEnd(false, "Microflow returned false");
 			}
 
-			boolean testResult = returnValueResult && !executionContext().hasFailedAssertion();
+			boolean testResult = returnValueResult && !executionContext.hasFailedAssertion();
 			test.setResult(testResult ? ENUM_UnitTestResult._3_Success : ENUM_UnitTestResult._2_Failed);
 
 			if (mfContext.isInTransaction()) {
@@ -413,27 +726,34 @@ public class TestManager {
 
 			if (!(cause instanceof AssertionException)) {
 				test.setStackTrace(ExceptionUtils.getStackTrace(e));
-				executionContext().collectException(e);
+				executionContext.collectException(e);
 			}
 
 			return false;
 		} finally {
-			executionContext().persistTestActivities(test);
+			try {
+				activityWriter.submit(test, executionContext);
 
-			test.setResultMessage(executionContext().getResultSummary());
-			test.setReadableTime(formatAsReadableTime(duration));
-			if (executionContext().getLastStep() != null)
-				test.setLastStep(executionContext().getLastStep().getMessage());
+				test.setResultMessage(executionContext.getResultSummary());
+				test.setReadableTime(formatAsReadableTime(duration));
+				if (executionContext.getLastStep() != null)
+					test.setLastStep(executionContext.getLastStep().getMessage());
 
-			commitSilent(test);
+				resultSink.add(test);
+			} finally {
+				// Pooled workers must not keep the context of this test, even if storing its result failed
+				TestExecutionContextRegistry.unbind();
+			}
 
 			LOG.info("Finished unit test " + mf + ": " + test.getResult());
 		}
 	}
 
-	private IContext getMicroflowTestContext(TestSuite testSuite) {
-		if (Core.getMicroflowNames().contains(testSuite.getModule() + ".Setup")) {
-			return setupContext.createClone();
+	private IContext getMicroflowTestContext(TestSuite testSuite, IContext setupContext) {
+		if (setupContext != null) {
+			synchronized (setupContext) {
+				return setupContext.createClone();
+			}
 		} else {
 			return Core.createSystemContext();
 		}
@@ -444,120 +764,117 @@ public class TestManager {
 			(ms == 0 ?  "<1" : ms) + " milliseconds");
 	}
 
-	private long getTestSuiteCount(IContext context, TestSuite testSuite, String constraint) {
-		StringBuilder query = new StringBuilder();
-		query.append(String.format("//%s", UnitTest.entityName));
-		query.append(String.format("[%s=%d]", UnitTest.MemberNames.UnitTest_TestSuite,
-				testSuite.getMendixObject().getId().toLong()));
-		if (constraint != null) query.append(constraint);
+	/**
+	 * Like {@link #formatAsReadableTime(long)}, but shows fractions of a
+	 * millisecond for durations below one millisecond.
+	 */
+	public static String formatNanosAsReadableTime(long nanos) {
+		if (nanos < 1_000_000L)
+			return String.format(Locale.ROOT, "%.3f milliseconds", nanos / 1_000_000.0);
 
-		return Core.createXPathQuery(String.format("COUNT(%s)", query)).executeAggregateLong(context);
+		return formatAsReadableTime(nanos / 1_000_000L);
 	}
 
 	public void updateTestSuiteCountersAndResult(IContext context, TestSuite testSuite, boolean commit)
 			throws CoreException {
-		long testCount = getTestSuiteCount(context, testSuite, null);
-		long succeededCount = getTestSuiteCount(context, testSuite, "[Result = '_3_Success']");
-		long failedCount = getTestSuiteCount(context, testSuite, "[Result = '_2_Failed']");
-		long pendingCount = getTestSuiteCount(context, testSuite, "[Result = '_1_Running' or Result = empty]");
-
-		testSuite.setTestCount(testCount);
-		LOG.trace("Updated test count to " + succeededCount);
-
-		testSuite.setTestPassedCount(succeededCount);
-		LOG.trace("Updated test suite succeeded count to " + succeededCount);
-
-		testSuite.setTestFailedCount(failedCount);
-		LOG.trace("Updated test suite failed count to " + failedCount);
-
-		if (failedCount > 0) {
-			testSuite.setResult(ENUM_UnitTestResult._2_Failed);
-			LOG.trace("Updated test suite result to 'Failed'");
-		} else if (pendingCount > 0 || testCount == 0) {
-			testSuite.setResult(null);
-			LOG.trace("Updated test suite result to empty");
-		} else {
-			testSuite.setResult(ENUM_UnitTestResult._3_Success);
-			LOG.trace("Updated test suite result to 'Success'");
-		}
+		TestSuiteCounters.query(context, testSuite).applyTo(testSuite);
 
 		if (commit) testSuite.commit();
 	}
 
-	private void commitSilent(UnitTest test) {
-		try {
-			test.commit();
-		} catch (CoreException e) {
-			throw new RuntimeException(e);
-		}
+	/**
+	 * Reports a step of the JUnit test running on the current thread.
+	 */
+	public void reportStep(String message) {
+		LOG.debug("Report step: " + message);
+		JUnitTestTracker.current().ifPresent(tracking -> tracking.reportStep(message));
 	}
 
-	UnitTest getJUnitTest(IContext context, TestSuite testSuite, Description description) {
-		return getUnitTest(context, testSuite, description.getClassName() + "/" + description.getMethodName(), false);
-	}
+	public synchronized void findAllTests(IContext context) throws CoreException {
+		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
 
-	private UnitTest getUnitTest(IContext context, TestSuite testSuite, String name, boolean isMF) {
-		String displayName = name.substring(testSuite.getModule().length() + 1);
+		/*
+		 * Find modules; rebuild the microflow index in case a model update went unnoticed
+		 */
+		Set<String> modules = MicroflowIndex.rebuild().getModules();
+		ModuleFingerprints fingerprints = ModuleFingerprints.compute(modules);
 
-		StringBuilder query = new StringBuilder();
-		query.append(String.format("//%s", UnitTest.entityName));
-		query.append(String.format("[%s=$TestSuite]", UnitTest.MemberNames.UnitTest_TestSuite));
-		query.append(String.format("[%s=$Name]", UnitTest.MemberNames.Name));
-		query.append(String.format("[%s=$DisplayName]", UnitTest.MemberNames.DisplayName));
-		query.append(String.format("[%s=$IsMicroflow]", UnitTest.MemberNames.IsMf));
-
-		Optional<IMendixObject> mxObject = Core.createXPathQuery(query.toString())
-				.setVariable("TestSuite", testSuite.getMendixObject().getId())
-				.setVariable("Name", name)
-				.setVariable("DisplayName", displayName)
-				.setVariable("IsMicroflow", isMF)
-				.execute(context).stream().findAny();
+		discoverTestSuites(context, modules);
+		discoveredModules = fingerprints;
 
-		if (mxObject.isPresent()) {
-			return UnitTest.initialize(context, mxObject.get());
-		} else {
-			UnitTest newTest = new UnitTest(context);
-			newTest.setName(name);
-			newTest.setDisplayName(displayName);
-			newTest.setUnitTest_TestSuite(testSuite);
-			newTest.setIsMf(isMF);
+		/*
+		 * Reset refresh required flag
+		 */
+		ModelUpdateSubscriber.getInstance().setRefreshRequired(false);
+	}
 
-			return newTest;
+	/**
+	 * Rediscovers only the test suites of modules whose microflows or classes
+	 * changed since the previous discovery. Falls back to {@link #findAllTests}
+	 * when no discovery has been done yet.
+	 *
+	 * @return the changed modules, which are all modules after a full discovery
+	 */
+	public synchronized Set<String> findChangedTests(IContext context) throws CoreException {
+		if (!ConfigurationManager.verifyModuleIsEnabled()) return Collections.emptySet();
+
+		if (discoveredModules.isEmpty()) {
+			findAllTests(context);
+			return discoveredModules.getModules();
 		}
-	}
 
-	public void reportStep(String message) {
-		LOG.debug("Report step: " + message);
-		lastStep = message;
+		ModuleFingerprints fingerprints = ModuleFingerprints.compute(MicroflowIndex.get().getModules());
+		Set<String> changedModules = fingerprints.getChangedModules(discoveredModules);
+
+		LOG.debug("Rediscovering tests of " + changedModules.size() + " changed modules: " + changedModules);
+		if (!changedModules.isEmpty())
+			discoverTestSuites(context, changedModules);
+
+		discoveredModules = fingerprints;
+		ModelUpdateSubscriber.getInstance().setRefreshRequired(false);
+
+		return changedModules;
 	}
 
-	public synchronized void findAllTests(IContext context) throws CoreException {
-		if (!ConfigurationManager.verifyModuleIsEnabled()) return;
+	private void discoverTestSuites(IContext context, Collection<String> modules) throws CoreException {
+		List<TestSuite> testSuites = findOrCreateTestSuites(context, modules);
 
 		/*
-		 * Find modules
+		 * Scan all modules in parallel; this phase does not touch the database
 		 */
-		Set<String> modules = new HashSet<String>();
-		for (String name : Core.getMicroflowNames())
-			modules.add(name.split("\\.")[0]);
+		List<DiscoveredTests> discoveredTests = testSuites.parallelStream()
+				.map(this::scanTestSuiteSafely)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
 
 		/*
-		 * Update modules
+		 * Store the differences, counters and results of all suites at once
 		 */
-		for (String module : modules) {
-			TestSuite testSuite = findOrCreateTestSuite(context, module);
-			updateUnitTestList(context, testSuite);
+		Map<Long, UnitTestIndex> unitTestsPerSuite = UnitTestIndex.loadAll(context,
+				discoveredTests.stream().map(DiscoveredTests::getTestSuite).collect(Collectors.toList()));
+
+		List<IMendixObject> newTests = new ArrayList<>();
+		List<IMendixObject> vanishedTests = new ArrayList<>();
+		List<IMendixObject> changedSuites = new ArrayList<>();
+
+		for (DiscoveredTests discovered : discoveredTests) {
+			TestSuite testSuite = discovered.getTestSuite();
+			UnitTestIndex unitTests = unitTestsPerSuite.get(testSuite.getMendixObject().getId().toLong());
+
+			syncUnitTests(unitTests, discovered, newTests, vanishedTests);
+			discovered.applyTo(testSuite);
+			TestSuiteCounters.count(unitTests.getUnitTests()).applyTo(testSuite);
+			changedSuites.add(testSuite.getMendixObject());
 		}
 
+		Core.commit(context, newTests);
+		Core.delete(context, vanishedTests);
+		Core.commit(context, changedSuites);
+
 		/*
 		 * Remove all modules without tests
 		 */
 		deleteTestSuitesWithoutTest(context);
-
-		/*
-		 * Reset refresh required flag
-		 */
-		ModelUpdateSubscriber.getInstance().setRefreshRequired(false);
 	}
 
 	public synchronized Optional<TestSuite> findTestSuite(IContext context, String module) {
@@ -571,18 +888,38 @@ public class TestManager {
         return mxObject.map(obj -> TestSuite.initialize(context, obj));
 	}
 
-	private synchronized TestSuite findOrCreateTestSuite(IContext context, String module) throws CoreException {
-		Optional<TestSuite> testSuite = findTestSuite(context, module);
+	/**
+	 * Retrieves the test suites of the given modules with a single query and
+	 * creates the missing ones, as long as the module still exists.
+	 */
+	private synchronized List<TestSuite> findOrCreateTestSuites(IContext context, Collection<String> modules) {
+		Set<String> existingModules = MicroflowIndex.get().getModules();
+
+		Map<String, TestSuite> testSuites = new HashMap<>();
+		for (IMendixObject mxObject : Core.createXPathQuery(String.format("//%s", TestSuite.entityName)).execute(context)) {
+			TestSuite testSuite = TestSuite.initialize(context, mxObject);
+			testSuites.put(testSuite.getModule(), testSuite);
+		}
 
-		if (testSuite.isPresent()) {
-			return testSuite.get();
-		} else {
-			TestSuite newSuite = new TestSuite(context);
-			newSuite.setModule(module);
-			newSuite.commit();
+		List<TestSuite> result = new ArrayList<>();
+		List<IMendixObject> newSuites = new ArrayList<>();
 
-			return newSuite;
+		for (String module : modules) {
+			TestSuite testSuite = testSuites.get(module);
+			if (testSuite == null) {
+				if (!existingModules.contains(module))
+					continue;
+
+				testSuite = new TestSuite(context);
+				testSuite.setModule(module);
+				newSuites.add(testSuite.getMendixObject());
+			}
+
+			result.add(testSuite);
 		}
+
+		Core.commit(context, newSuites);
+		return result;
 	}
 
 	private synchronized void deleteTestSuitesWithoutTest(IContext context) throws CoreException {
@@ -596,74 +933,134 @@ public class TestManager {
 
 	public synchronized void updateUnitTestList(IContext context, TestSuite testSuite) {
 		try {
+			UnitTestIndex unitTests = syncTestSuite(context, testSuite);
+
 			/*
-			 * Mark all dirty
+			 * Update counters + result
 			 */
-			StringBuilder query = new StringBuilder();
-			query.append(String.format("//%s", UnitTest.entityName));
-			query.append(String.format("[%s=$TestSuite]", UnitTest.MemberNames.UnitTest_TestSuite));
-
-			List<IMendixObject> unitTests = Core.createXPathQuery(query.toString())
-					.setVariable("TestSuite", testSuite.getMendixObject().getId().toLong()).execute(context);
+			TestSuiteCounters.count(unitTests.getUnitTests()).applyTo(testSuite);
+			testSuite.commit();
 
-			for (IMendixObject mxObject : unitTests) {
-				UnitTest test = UnitTest.initialize(context, mxObject);
-				test.set_dirty(true);
-				test.commit();
-			}
+		} catch (Exception e) {
+			LOG.error("Failed to update unit test list: " + e.getMessage(), e);
+		}
+	}
 
-			/*
-			 * Find microflow tests
-			 */
-			for (String mf : findMicroflowUnitTests(testSuite)) {
-				UnitTest test = getUnitTest(context, testSuite, mf, true);
-				test.set_dirty(false);
-				test.setUnitTest_TestSuite(testSuite);
-				test.commit();
-			}
+	/**
+	 * Discovers the tests of a suite and stores the difference. Also updates the
+	 * setup/teardown flags of the suite, but does not commit it.
+	 *
+	 * @return the up to date unit test index of the suite
+	 */
+	private UnitTestIndex syncTestSuite(IContext context, TestSuite testSuite) {
+		/*
+		 * Find microflow and JUnit tests
+		 */
+		DiscoveredTests discovered = scanTestSuite(testSuite);
 
-			if (unittesting.proxies.constants.Constants.getFindJUnitTests()) {
-				/*
-				 * Find Junit tests
-				 */
-				for (String jtest : JavaTestDiscovery.findJUnitTests(testSuite)) {
-					UnitTest test = getUnitTest(context, testSuite, jtest, false);
-					test.set_dirty(false);
-					test.setUnitTest_TestSuite(testSuite);
-					test.commit();
-				}
-			}
+		/*
+		 * Add new and delete vanished tests
+		 */
+		UnitTestIndex unitTests = UnitTestIndex.load(context, testSuite);
+		List<IMendixObject> newTests = new ArrayList<>();
+		List<IMendixObject> vanishedTests = new ArrayList<>();
 
-			/*
-			 * Delete dirty tests
-			 */
-			StringBuilder deleteQuery = new StringBuilder();
-			deleteQuery.append(String.format("//%s", UnitTest.entityName));
-			deleteQuery.append(String.format("[%s=true]", UnitTest.MemberNames._dirty));
+		syncUnitTests(unitTests, discovered, newTests, vanishedTests);
+		Core.commit(context, newTests);
+		Core.delete(context, vanishedTests);
 
-			List<IMendixObject> dirtyTests = Core.createXPathQuery(deleteQuery.toString()).execute(context);
-			Core.delete(context, dirtyTests);
+		/*
+		 * Update setup/teardown
+		 */
+		discovered.applyTo(testSuite);
 
-			/*
-			 * Update counters + result
-			 */
-			updateTestSuiteCountersAndResult(context, testSuite, false);
+		return unitTests;
+	}
 
-			/*
-			 * Update setup/teardown
-			 */
-			testSuite.setHasSetup(hasMfSetup(testSuite));
-			testSuite.setHasTearDown(hasMfTearDown(testSuite));
-			testSuite.commit();
+	/**
+	 * Finds the microflow and JUnit tests of a suite. Only reads the model and the
+	 * project jar, so suites can be scanned in parallel.
+	 */
+	private DiscoveredTests scanTestSuite(TestSuite testSuite) {
+		List<String> microflowTests = findMicroflowUnitTests(testSuite);
+		List<String> javaTests = unittesting.proxies.constants.Constants.getFindJUnitTests()
+				? JavaTestDiscovery.findJUnitTests(testSuite)
+				: Collections.emptyList();
+
+		return new DiscoveredTests(testSuite, microflowTests, javaTests, hasMfSetup(testSuite),
+				hasMfTearDown(testSuite));
+	}
 
+	private DiscoveredTests scanTestSuiteSafely(TestSuite testSuite) {
+		try {
+			return scanTestSuite(testSuite);
 		} catch (Exception e) {
 			LOG.error("Failed to update unit test list: " + e.getMessage(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Syncs the index of a suite with its discovered tests, see
+	 * {@link UnitTestIndex#sync}. New tests are added to newTests and vanished
+	 * tests to vanishedTests, so the caller can write the difference of one or
+	 * more suites in a single call each.
+	 */
+	private void syncUnitTests(UnitTestIndex unitTests, DiscoveredTests discovered, List<IMendixObject> newTests,
+			List<IMendixObject> vanishedTests) {
+		UnitTestIndex.Changes changes = unitTests.sync(discovered.getMicroflowTests(), discovered.getJavaTests());
+		changes.getNewTests().forEach(test -> newTests.add(test.getMendixObject()));
+		changes.getVanishedTests().forEach(test -> vanishedTests.add(test.getMendixObject()));
+
+		if (!changes.getNewTests().isEmpty())
+			LOG.debug("Adding " + changes.getNewTests().size() + " tests to " + unitTests.getTestSuite().getModule());
+		if (!changes.getVanishedTests().isEmpty())
+			LOG.debug("Removing " + changes.getVanishedTests().size() + " tests from "
+					+ unitTests.getTestSuite().getModule());
+	}
+
+	/**
+	 * The outcome of scanning the model and project jar for the tests of a suite.
+	 */
+	private static final class DiscoveredTests {
+		private final TestSuite testSuite;
+		private final List<String> microflowTests;
+		private final List<String> javaTests;
+		private final boolean hasSetup;
+		private final boolean hasTearDown;
+
+		DiscoveredTests(TestSuite testSuite, List<String> microflowTests, List<String> javaTests, boolean hasSetup,
+				boolean hasTearDown) {
+			this.testSuite = testSuite;
+			this.microflowTests = microflowTests;
+			this.javaTests = javaTests;
+			this.hasSetup = hasSetup;
+			this.hasTearDown = hasTearDown;
+		}
+
+		TestSuite getTestSuite() {
+			return testSuite;
+		}
+
+		List<String> getMicroflowTests() {
+			return microflowTests;
+		}
+
+		List<String> getJavaTests() {
+			return javaTests;
+		}
+
+		void applyTo(TestSuite testSuite) {
+			testSuite.setHasSetup(hasSetup);
+			testSuite.setHasTearDown(hasTearDown);
 		}
 	}
 
+	/**
+	 * @return the last step reported by the JUnit test running on the current
+	 *         thread, or null
+	 */
 	public String getLastReportedStep() {
-		// MWE: this system is problematic weird if used from multiple simultanously
-		// used threads..
-		return lastStep;
+		return JUnitTestTracker.current().map(JUnitTestTracker.Tracking::getLastStep).orElse(null);
 	}
 }
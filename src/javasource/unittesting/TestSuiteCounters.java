@@ -0,0 +1,109 @@
+package unittesting;
+
+import java.util.Collection;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.connectionbus.data.IDataRow;
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Test, success, failure and pending counters of a test suite, computed in a
+ * single pass over its unit tests or a single grouped query instead of one
+ * aggregate query per counter.
+ */
+public class TestSuiteCounters {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private long testCount = 0L;
+    private long succeededCount = 0L;
+    private long failedCount = 0L;
+    private long pendingCount = 0L;
+
+    public static TestSuiteCounters count(Collection<UnitTest> unitTests) {
+        TestSuiteCounters counters = new TestSuiteCounters();
+        for (UnitTest unitTest : unitTests)
+            counters.add(unitTest.getResult());
+
+        return counters;
+    }
+
+    /**
+     * Counts the unit tests of a suite in a single query grouped by result,
+     * without retrieving the tests themselves.
+     */
+    public static TestSuiteCounters query(IContext context, TestSuite testSuite) throws CoreException {
+        String oql = String.format("SELECT UnitTest/%1$s AS Result, COUNT(UnitTest/ID) AS TestCount"
+                + " FROM %2$s AS UnitTest WHERE UnitTest/%3$s = %4$d GROUP BY UnitTest/%1$s",
+                UnitTest.MemberNames.Result, UnitTest.entityName, UnitTest.MemberNames.UnitTest_TestSuite,
+                testSuite.getMendixObject().getId().toLong());
+
+        TestSuiteCounters counters = new TestSuiteCounters();
+        for (IDataRow row : Core.retrieveOQLDataTable(context, oql).getRows()) {
+            String result = row.getValue(context, 0);
+            Number count = row.getValue(context, 1);
+            counters.add(result == null || result.isEmpty() ? null : ENUM_UnitTestResult.valueOf(result),
+                    count.longValue());
+        }
+
+        return counters;
+    }
+
+    public void add(ENUM_UnitTestResult result) {
+        add(result, 1L);
+    }
+
+    private void add(ENUM_UnitTestResult result, long count) {
+        testCount += count;
+
+        if (result == ENUM_UnitTestResult._3_Success)
+            succeededCount += count;
+        else if (result == ENUM_UnitTestResult._2_Failed)
+            failedCount += count;
+        else
+            pendingCount += count;
+    }
+
+    public long getTestCount() {
+        return testCount;
+    }
+
+    public long getSucceededCount() {
+        return succeededCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    public void applyTo(TestSuite testSuite) {
+        testSuite.setTestCount(testCount);
+        LOG.trace("Updated test count to " + testCount);
+
+        testSuite.setTestPassedCount(succeededCount);
+        LOG.trace("Updated test suite succeeded count to " + succeededCount);
+
+        testSuite.setTestFailedCount(failedCount);
+        LOG.trace("Updated test suite failed count to " + failedCount);
+
+        if (failedCount > 0) {
+            testSuite.setResult(ENUM_UnitTestResult._2_Failed);
+            LOG.trace("Updated test suite result to 'Failed'");
+        } else if (pendingCount > 0 || testCount == 0) {
+            testSuite.setResult(null);
+            LOG.trace("Updated test suite result to empty");
+        } else {
+            testSuite.setResult(ENUM_UnitTestResult._3_Success);
+            LOG.trace("Updated test suite result to 'Success'");
+        }
+    }
+}
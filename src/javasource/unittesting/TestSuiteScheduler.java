@@ -0,0 +1,88 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixIdentifier;
+
+import unittesting.proxies.TestSuite;
+
+/**
+ * Runs a set of test suites on a bounded number of workers. Every worker owns
+ * its own system context and picks the next suite from a shared queue, so a
+ * single slow suite does not hold back the others.
+ */
+public class TestSuiteScheduler {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    @FunctionalInterface
+    public interface SuiteTask {
+        void run(IContext context, TestSuite testSuite) throws CoreException;
+    }
+
+    private final int parallelism;
+
+    public TestSuiteScheduler(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void run(List<IMendixIdentifier> testSuiteIds, SuiteTask task) throws CoreException {
+        int workers = Math.min(parallelism, testSuiteIds.size());
+
+        if (workers <= 1) {
+            IContext context = Core.createSystemContext();
+            for (IMendixIdentifier id : testSuiteIds)
+                task.run(context, TestSuite.load(context, id));
+            return;
+        }
+
+        LOG.info("Running " + testSuiteIds.size() + " test suites on " + workers + " workers");
+
+        Queue<IMendixIdentifier> queue = new ConcurrentLinkedQueue<>(testSuiteIds);
+        ExecutorService executor = WorkerPools.newPool(workers, "UnitTestRunner-suite");
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    IContext context = Core.createSystemContext();
+                    IMendixIdentifier id;
+
+                    while ((id = queue.poll()) != null) {
+                        task.run(context, TestSuite.load(context, id));
+                    }
+
+                    return null;
+                }));
+            }
+
+            CoreException failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Test suite worker failed: " + e.getCause().getMessage(), e.getCause());
+                    if (failure == null)
+                        failure = new CoreException("Test suite worker failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+
+            if (failure != null)
+                throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CoreException("Interrupted while waiting for test suites to finish", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
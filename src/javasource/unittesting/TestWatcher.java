@@ -0,0 +1,101 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.mendix.core.Core;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixIdentifier;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Watch mode: after the tests of a model update have been rediscovered, runs
+ * the test suites of the changed modules and all tests that failed before.
+ * Runs happen one after another on a background thread; results are written as
+ * the tests complete, like any other test run. Enable using
+ * -Dunittesting.watchMode=true
+ *
+ * Module fingerprints only see the names of microflows, not their contents. A
+ * model update that changed no fingerprint most likely changed a microflow, so
+ * then the suites of all modules with microflow tests are run instead.
+ */
+public class TestWatcher {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+    private static final ExecutorService executor = Executors
+            .newSingleThreadExecutor(new WorkerPools.WorkerThreadFactory("UnitTestRunner-watch"));
+
+    private TestWatcher() {
+    }
+
+    public static void testsRediscovered(Set<String> changedModules) {
+        if (!ConfigurationManager.isWatchModeEnabled())
+            return;
+
+        Set<String> modules = new TreeSet<>(changedModules);
+        executor.submit(() -> {
+            try {
+                rerunTests(Core.createSystemContext(), modules);
+            } catch (Exception e) {
+                LOG.error("Watch mode test run failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private static void rerunTests(IContext context, Set<String> changedModules) throws Exception {
+        TestManager testManager = TestManager.instance();
+        long start = System.currentTimeMillis();
+
+        /*
+         * Run the suites of the changed modules
+         */
+        Set<Long> rerunSuites = new HashSet<>();
+        boolean microflowsOnly = changedModules.isEmpty();
+        Set<String> modules = microflowsOnly ? MicroflowIndex.get().getModules() : changedModules;
+
+        for (String module : modules) {
+            Optional<TestSuite> testSuite = testManager.findTestSuite(context, module);
+            if (microflowsOnly && testSuite.isPresent() && testManager.findMicroflowUnitTests(testSuite.get()).isEmpty())
+                continue;
+
+            if (testSuite.isPresent()) {
+                LOG.info("[watch mode] Running tests of " + (microflowsOnly ? "module with microflow tests "
+                        : "changed module ") + module);
+                testManager.runTestSuite(context, testSuite.get());
+                rerunSuites.add(testSuite.get().getMendixObject().getId().toLong());
+            }
+        }
+
+        /*
+         * Run the tests that failed before in the other suites
+         */
+        List<UnitTest> failedTests = new ArrayList<>();
+        List<IMendixObject> mxObjects = Core.createXPathQuery(String.format("//%s[%s=$Result]", UnitTest.entityName,
+                UnitTest.MemberNames.Result)).setVariable("Result", ENUM_UnitTestResult._2_Failed.toString())
+                .execute(context);
+
+        for (IMendixObject mxObject : mxObjects) {
+            IMendixIdentifier testSuiteId = mxObject.getValue(context, UnitTest.MemberNames.UnitTest_TestSuite.toString());
+            if (testSuiteId != null && !rerunSuites.contains(testSuiteId.toLong()))
+                failedTests.add(UnitTest.initialize(context, mxObject));
+        }
+
+        if (!failedTests.isEmpty()) {
+            LOG.info("[watch mode] Running " + failedTests.size() + " previously failed tests");
+            testManager.runTests(context, failedTests);
+        }
+
+        LOG.info("[watch mode] Ran " + rerunSuites.size() + " changed suites and " + failedTests.size()
+                + " previously failed tests in " + TestManager.formatAsReadableTime(System.currentTimeMillis() - start));
+    }
+}
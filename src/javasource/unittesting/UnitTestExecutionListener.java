@@ -0,0 +1,227 @@
+package unittesting;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.runner.Description;
+
+import com.mendix.core.CoreException;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+
+import unittesting.proxies.ENUM_UnitTestResult;
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Reports JUnit Platform test results to the unit tests of a suite, the same
+ * way {@link UnitTestRunListener} does for JUnit 4 tests.
+ *
+ * A unit test maps to a test method. Invocations of repeated and parameterized
+ * tests and dynamic tests of a test factory are not reported separately: the
+ * first failure of any of them fails the method that declares them. A failure
+ * of a test class (like in a @BeforeAll method) fails its tests that did not
+ * finish. Skipped tests are not reported and aborted tests count as passed,
+ * like JUnit 4 assumption failures.
+ *
+ * Safe to use with tests that run in parallel.
+ */
+public class UnitTestExecutionListener implements TestExecutionListener {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private final IContext context;
+    private final TestSuite testSuite;
+    private final UnitTestResultSink resultSink;
+    private UnitTestIndex unitTestIndex;
+    private volatile TestPlan testPlan;
+
+    private final Map<String, UnitTest> unitTests = new ConcurrentHashMap<>();
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> finishedTests = new ConcurrentHashMap<>();
+    private final AtomicLong passedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public UnitTestExecutionListener(IContext context, TestSuite testSuite, UnitTestIndex unitTestIndex) {
+        this.context = context;
+        this.testSuite = testSuite;
+        this.unitTestIndex = unitTestIndex;
+        this.resultSink = new UnitTestResultSink(context);
+    }
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        LOG.info("Starting test run");
+        this.testPlan = testPlan;
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        resultSink.flush();
+
+        testSuite.setTestPassedCount(testSuite.getTestPassedCount() + passedCount.getAndSet(0));
+        testSuite.setTestFailedCount(testSuite.getTestFailedCount() + failedCount.getAndSet(0));
+        try {
+            testSuite.commit();
+        } catch (CoreException e) {
+            LOG.error("Unable to store the results of test suite " + testSuite.getModule() + ": " + e.getMessage(), e);
+        }
+
+        LOG.info("Test run finished");
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (!isTestMethod(testIdentifier))
+            return;
+
+        MethodSource source = getMethodSource(testIdentifier);
+        String message = "Starting JUnit test " + source.getClassName() + "." + source.getMethodName();
+        LOG.info(message);
+        JUnitTestTracker.start(getDescription(source)).reportStep(message);
+
+        UnitTest t = getUnitTest(source);
+        t.setResult(ENUM_UnitTestResult._1_Running);
+        t.setResultMessage("");
+        t.setLastRun(new Date());
+        resultSink.add(t);
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult result) {
+        if (result.getStatus() == TestExecutionResult.Status.FAILED) {
+            Throwable throwable = result.getThrowable()
+                    .orElseGet(() -> new AssertionError("Failed without an exception"));
+            Optional<TestIdentifier> testMethod = findTestMethod(testIdentifier);
+
+            if (testMethod.isPresent())
+                failures.putIfAbsent(getTestName(getMethodSource(testMethod.get())), throwable);
+            else if (isSource(testIdentifier, ClassSource.class))
+                failUnfinishedTests(testIdentifier, throwable);
+            else
+                LOG.error("JUnit test container " + testIdentifier.getDisplayName() + " failed: "
+                        + throwable.getMessage(), throwable);
+        }
+
+        if (isTestMethod(testIdentifier))
+            finishTest(getMethodSource(testIdentifier));
+    }
+
+    private void failUnfinishedTests(TestIdentifier classIdentifier, Throwable throwable) {
+        for (TestIdentifier descendant : testPlan.getDescendants(classIdentifier)) {
+            if (!isTestMethod(descendant))
+                continue;
+
+            MethodSource source = getMethodSource(descendant);
+            if (!finishedTests.containsKey(getTestName(source))) {
+                failures.putIfAbsent(getTestName(source), throwable);
+                finishTest(source);
+            }
+        }
+    }
+
+    private void finishTest(MethodSource source) {
+        String testName = getTestName(source);
+        if (finishedTests.putIfAbsent(testName, Boolean.TRUE) != null)
+            return;
+
+        UnitTest t = getUnitTest(source);
+        Optional<JUnitTestTracker.Tracking> tracking = JUnitTestTracker.finish(getDescription(source));
+        String lastStep = tracking.map(JUnitTestTracker.Tracking::getLastStep).orElse(null);
+        Throwable failure = failures.get(testName);
+
+        if (failure == null) {
+            LOG.info("Finished test " + source.getClassName() + "." + source.getMethodName());
+
+            t.setResult(ENUM_UnitTestResult._3_Success);
+            t.setResultMessage("JUnit test completed successfully");
+            passedCount.incrementAndGet();
+        } else {
+            LOG.error("Failed test (at step '" + lastStep + "') " + source.getClassName() + "."
+                    + source.getMethodName() + " : " + failure.getMessage(), failure);
+
+            String trace = ExceptionUtils.getStackTrace(failure);
+            t.setResult(ENUM_UnitTestResult._2_Failed);
+            t.setResultMessage(UnitTestRunListener.getFailureMessage(trace, failure.getMessage()));
+            t.setStackTrace(trace);
+            failedCount.incrementAndGet();
+        }
+
+        if (!tracking.isPresent()) // never started, like when its class failed to set up
+            t.setLastRun(new Date());
+
+        t.setReadableTime(getReadableTime(tracking, t));
+        t.setLastStep(lastStep);
+        resultSink.add(t);
+    }
+
+    /**
+     * A test method is the node of a method that is not nested in a node of the
+     * same method, like the invocations of a parameterized test are.
+     */
+    private boolean isTestMethod(TestIdentifier testIdentifier) {
+        if (!isSource(testIdentifier, MethodSource.class))
+            return false;
+
+        Optional<TestIdentifier> parent = testPlan.getParent(testIdentifier);
+        return !parent.isPresent() || !isSource(parent.get(), MethodSource.class);
+    }
+
+    private Optional<TestIdentifier> findTestMethod(TestIdentifier testIdentifier) {
+        for (Optional<TestIdentifier> current = Optional.of(testIdentifier); current.isPresent();
+                current = testPlan.getParent(current.get()))
+            if (isTestMethod(current.get()))
+                return current;
+
+        return Optional.empty();
+    }
+
+    private static boolean isSource(TestIdentifier testIdentifier, Class<? extends TestSource> sourceType) {
+        return testIdentifier.getSource().filter(sourceType::isInstance).isPresent();
+    }
+
+    private static MethodSource getMethodSource(TestIdentifier testIdentifier) {
+        return (MethodSource) testIdentifier.getSource().get();
+    }
+
+    private UnitTest getUnitTest(MethodSource source) {
+        return unitTests.computeIfAbsent(getTestName(source), name -> getUnitTestIndex().get(name, false));
+    }
+
+    private synchronized UnitTestIndex getUnitTestIndex() {
+        if (unitTestIndex == null)
+            unitTestIndex = UnitTestIndex.load(context, testSuite);
+
+        return unitTestIndex;
+    }
+
+    private static String getTestName(MethodSource source) {
+        return source.getClassName() + "/" + source.getMethodName();
+    }
+
+    /**
+     * Steps and timings are tracked by JUnit 4 description, which only needs the
+     * class and method name.
+     */
+    private static Description getDescription(MethodSource source) {
+        return Description.createTestDescription(source.getClassName(), source.getMethodName());
+    }
+
+    private static String getReadableTime(Optional<JUnitTestTracker.Tracking> tracking, UnitTest t) {
+        if (tracking.isPresent())
+            return TestManager.formatNanosAsReadableTime(tracking.get().getRunTime());
+
+        long delta = t.getLastRun() == null ? 0L : System.currentTimeMillis() - t.getLastRun().getTime();
+        return TestManager.formatAsReadableTime(delta);
+    }
+}
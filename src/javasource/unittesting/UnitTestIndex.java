@@ -0,0 +1,203 @@
+package unittesting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import com.mendix.core.Core;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixIdentifier;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * In-memory index of the unit tests of a single test suite, keyed by name and
+ * test type. All unit tests of the suite are retrieved with one query, after
+ * which lookups and newly created tests are served from the index.
+ */
+public class UnitTestIndex {
+    private static final int SUITES_PER_QUERY = 50;
+
+    private final IContext context;
+    private final TestSuite testSuite;
+    private final Map<Key, UnitTest> unitTests = new ConcurrentHashMap<>();
+
+    private UnitTestIndex(IContext context, TestSuite testSuite) {
+        this.context = context;
+        this.testSuite = testSuite;
+    }
+
+    public static UnitTestIndex load(IContext context, TestSuite testSuite) {
+        UnitTestIndex index = new UnitTestIndex(context, testSuite);
+
+        StringBuilder query = new StringBuilder();
+        query.append(String.format("//%s", UnitTest.entityName));
+        query.append(String.format("[%s=$TestSuite]", UnitTest.MemberNames.UnitTest_TestSuite));
+
+        List<IMendixObject> mxObjects = Core.createXPathQuery(query.toString())
+                .setVariable("TestSuite", testSuite.getMendixObject().getId().toLong()).execute(context);
+
+        for (IMendixObject mxObject : mxObjects) {
+            UnitTest unitTest = UnitTest.initialize(context, mxObject);
+            index.unitTests.put(new Key(unitTest.getName(), Boolean.TRUE.equals(unitTest.getIsMf())), unitTest);
+        }
+
+        return index;
+    }
+
+    /**
+     * Loads the unit tests of all given test suites with one query per
+     * {@value #SUITES_PER_QUERY} suites.
+     *
+     * @return the index of every given suite, keyed by the id of the suite
+     */
+    public static Map<Long, UnitTestIndex> loadAll(IContext context, Collection<TestSuite> testSuites) {
+        Map<Long, UnitTestIndex> indexes = new HashMap<>();
+        for (TestSuite testSuite : testSuites)
+            indexes.put(testSuite.getMendixObject().getId().toLong(), new UnitTestIndex(context, testSuite));
+
+        List<Long> testSuiteIds = new ArrayList<>(indexes.keySet());
+        for (int i = 0; i < testSuiteIds.size(); i += SUITES_PER_QUERY) {
+            StringBuilder query = new StringBuilder();
+            query.append(String.format("//%s", UnitTest.entityName));
+            query.append(testSuiteIds.subList(i, Math.min(i + SUITES_PER_QUERY, testSuiteIds.size())).stream()
+                    .map(id -> String.format("%s=%d", UnitTest.MemberNames.UnitTest_TestSuite, id))
+                    .collect(Collectors.joining(" or ", "[", "]")));
+
+            for (IMendixObject mxObject : Core.createXPathQuery(query.toString()).execute(context)) {
+                IMendixIdentifier testSuiteId = mxObject.getValue(context,
+                        UnitTest.MemberNames.UnitTest_TestSuite.toString());
+                UnitTestIndex index = testSuiteId == null ? null : indexes.get(testSuiteId.toLong());
+                if (index == null)
+                    continue;
+
+                UnitTest unitTest = UnitTest.initialize(context, mxObject);
+                index.unitTests.put(new Key(unitTest.getName(), Boolean.TRUE.equals(unitTest.getIsMf())), unitTest);
+            }
+        }
+
+        return indexes;
+    }
+
+    public TestSuite getTestSuite() {
+        return testSuite;
+    }
+
+    public Optional<UnitTest> find(String name, boolean isMf) {
+        return Optional.ofNullable(unitTests.get(new Key(name, isMf)));
+    }
+
+    /**
+     * Returns the unit test with the given name, or creates (but does not commit)
+     * a new unit test for the suite if it does not exist yet.
+     */
+    public UnitTest get(String name, boolean isMf) {
+        return unitTests.computeIfAbsent(new Key(name, isMf), key -> createUnitTest(name, isMf));
+    }
+
+    public List<UnitTest> getUnitTests() {
+        return new ArrayList<>(unitTests.values());
+    }
+
+    public void remove(UnitTest unitTest) {
+        unitTests.remove(new Key(unitTest.getName(), Boolean.TRUE.equals(unitTest.getIsMf())));
+    }
+
+    /**
+     * Brings the index in line with the discovered tests of the suite. Tests that
+     * were not discovered are removed from the index and missing tests are
+     * created, but nothing is committed or deleted. Unchanged tests are left
+     * untouched.
+     *
+     * @return the created and removed tests
+     */
+    public Changes sync(Collection<String> microflowTests, Collection<String> javaTests) {
+        Set<String> discoveredMicroflowTests = new HashSet<>(microflowTests);
+        Set<String> discoveredJavaTests = new HashSet<>(javaTests);
+        List<UnitTest> newTests = new ArrayList<>();
+        List<UnitTest> vanishedTests = new ArrayList<>();
+
+        for (UnitTest test : getUnitTests()) {
+            Set<String> discoveredTests = Boolean.TRUE.equals(test.getIsMf()) ? discoveredMicroflowTests
+                    : discoveredJavaTests;
+            if (!discoveredTests.contains(test.getName())) {
+                vanishedTests.add(test);
+                remove(test);
+            }
+        }
+
+        for (String name : discoveredMicroflowTests)
+            if (!find(name, true).isPresent())
+                newTests.add(get(name, true));
+        for (String name : discoveredJavaTests)
+            if (!find(name, false).isPresent())
+                newTests.add(get(name, false));
+
+        return new Changes(newTests, vanishedTests);
+    }
+
+    private UnitTest createUnitTest(String name, boolean isMf) {
+        UnitTest newTest = new UnitTest(context);
+        newTest.setName(name);
+        newTest.setDisplayName(name.substring(testSuite.getModule().length() + 1));
+        newTest.setUnitTest_TestSuite(testSuite);
+        newTest.setIsMf(isMf);
+
+        return newTest;
+    }
+
+    /**
+     * The tests that {@link UnitTestIndex#sync} created and removed.
+     */
+    public static final class Changes {
+        private final List<UnitTest> newTests;
+        private final List<UnitTest> vanishedTests;
+
+        Changes(List<UnitTest> newTests, List<UnitTest> vanishedTests) {
+            this.newTests = newTests;
+            this.vanishedTests = vanishedTests;
+        }
+
+        public List<UnitTest> getNewTests() {
+            return newTests;
+        }
+
+        public List<UnitTest> getVanishedTests() {
+            return vanishedTests;
+        }
+    }
+
+    private static final class Key {
+        private final String name;
+        private final boolean isMf;
+
+        Key(String name, boolean isMf) {
+            this.name = name;
+            this.isMf = isMf;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+
+            Key key = (Key) other;
+            return isMf == key.isMf && Objects.equals(name, key.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, isMf);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package unittesting;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.mendix.core.Core;
+import com.mendix.core.CoreException;
+import com.mendix.logging.ILogNode;
+import com.mendix.systemwideinterfaces.core.IContext;
+import com.mendix.systemwideinterfaces.core.IMendixObject;
+
+import unittesting.proxies.TestSuite;
+import unittesting.proxies.UnitTest;
+
+/**
+ * Buffers changes to unit tests during a test run and commits them in batches,
+ * instead of committing every unit test on every state change. A batch is
+ * written when it reaches the configured size or when the configured interval
+ * has passed since the last write, so the overview keeps showing progress.
+ * Whatever is left is written when the sink is closed at the end of the run.
+ *
+ * Tests may report from multiple threads. Adding a test only copies its result
+ * members, and batches are written through objects and a context of the sink
+ * itself, so a commit never touches unit tests that other threads are still
+ * changing.
+ */
+public class UnitTestResultSink implements AutoCloseable {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private static final List<String> RESULT_MEMBERS = Collections.unmodifiableList(Arrays.asList(
+            UnitTest.MemberNames.Result.toString(),
+            UnitTest.MemberNames.ResultMessage.toString(),
+            UnitTest.MemberNames.LastRun.toString(),
+            UnitTest.MemberNames.StackTrace.toString(),
+            UnitTest.MemberNames.ReadableTime.toString(),
+            UnitTest.MemberNames.LastStep.toString()));
+
+    private final IContext context;
+    private final int batchSize;
+    private final long flushInterval;
+    private final Map<Long, Map<String, Object>> pending = new LinkedHashMap<>();
+
+    private long lastFlush = System.currentTimeMillis();
+    private long lastProgress = 0L;
+
+    public UnitTestResultSink(IContext context) {
+        this(context, ConfigurationManager.getResultBatchSize(), ConfigurationManager.getProgressInterval());
+    }
+
+    public UnitTestResultSink(IContext context, int batchSize, long flushInterval) {
+        this.context = context.createClone();
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(0L, flushInterval);
+    }
+
+    public void add(UnitTest test) {
+        IMendixObject mxObject = test.getMendixObject();
+
+        // New tests are written right away, so activities can refer to them
+        if (mxObject.isNew()) {
+            try {
+                test.commit();
+            } catch (CoreException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        Map<String, Object> snapshot = new HashMap<>();
+        for (String member : RESULT_MEMBERS)
+            snapshot.put(member, mxObject.getValue(test.getContext(), member));
+
+        synchronized (this) {
+            pending.put(mxObject.getId().toLong(), snapshot);
+
+            if (pending.size() >= batchSize || isIntervalPassed(lastFlush))
+                flush();
+        }
+    }
+
+    /**
+     * Commits the test suite (and any pending tests) if the progress interval
+     * has passed since the last time the suite was committed by this sink.
+     */
+    public synchronized void progress(TestSuite testSuite) throws CoreException {
+        if (!isIntervalPassed(lastProgress))
+            return;
+
+        flush();
+        testSuite.commit();
+        lastProgress = System.currentTimeMillis();
+    }
+
+    public synchronized void flush() {
+        lastFlush = System.currentTimeMillis();
+        if (pending.isEmpty())
+            return;
+
+        LOG.trace("Committing " + pending.size() + " unit test results");
+
+        String query = String.format("//%s", UnitTest.entityName) + pending.keySet().stream()
+                .map(id -> "id=" + id).collect(Collectors.joining(" or ", "[", "]"));
+        List<IMendixObject> mxObjects = Core.createXPathQuery(query).execute(context);
+
+        for (IMendixObject mxObject : mxObjects)
+            pending.get(mxObject.getId().toLong()).forEach((member, value) -> mxObject.setValue(context, member, value));
+
+        Core.commit(context, mxObjects);
+        pending.clear();
+    }
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private boolean isIntervalPassed(long since) {
+        return System.currentTimeMillis() - since >= flushInterval;
+    }
+}
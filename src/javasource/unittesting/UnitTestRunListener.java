@@ -1,7 +1,10 @@
 package unittesting;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.mendix.logging.ILogNode;
 import org.junit.runner.Description;
@@ -15,24 +18,49 @@ import unittesting.proxies.TestSuite;
 import unittesting.proxies.UnitTest;
 import unittesting.proxies.ENUM_UnitTestResult;
 
+/**
+ * Reports JUnit test results to the unit tests of a suite. Safe to use with
+ * tests that run in parallel: counters are atomic and results are written
+ * through a synchronized result sink.
+ */
+@RunListener.ThreadSafe
 public class UnitTestRunListener extends RunListener {
 	private static final ILogNode LOG = ConfigurationManager.LOG;
 
 	private IContext context;
 	private TestSuite testSuite;
+	private UnitTestResultSink resultSink;
+	private UnitTestIndex unitTestIndex;
+
+	private final Map<Description, UnitTest> unitTests = new ConcurrentHashMap<>();
+	private final AtomicLong passedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
 
 	public UnitTestRunListener(IContext context, TestSuite testSuite) {
+		this(context, testSuite, null);
+	}
+
+	public UnitTestRunListener(IContext context, TestSuite testSuite, UnitTestIndex unitTestIndex) {
 		this.context = context;
 		this.testSuite = testSuite;
+		this.unitTestIndex = unitTestIndex;
+		this.resultSink = new UnitTestResultSink(context);
 	}
 
 	@Override
 	public void testRunStarted(Description description) {
 		LOG.info("Starting test run");
+		preloadUnitTests(description);
 	}
 
 	@Override
-	public void testRunFinished(Result result) {
+	public void testRunFinished(Result result) throws Exception {
+		resultSink.flush();
+
+		testSuite.setTestPassedCount(testSuite.getTestPassedCount() + passedCount.getAndSet(0));
+		testSuite.setTestFailedCount(testSuite.getTestFailedCount() + failedCount.getAndSet(0));
+		testSuite.commit();
+
 		LOG.info("Test run finished");
 	}
 
@@ -40,17 +68,46 @@ public class UnitTestRunListener extends RunListener {
 	public void testStarted(Description description) throws Exception {
 		String message = "Starting JUnit test " + description.getClassName() + "." + description.getMethodName();
 		LOG.info(message);
-		TestManager.instance().reportStep(message);
+		JUnitTestTracker.start(description).reportStep(message);
 
 		UnitTest t = getUnitTest(description);
 		t.setResult(ENUM_UnitTestResult._1_Running);
 		t.setResultMessage("");
 		t.setLastRun(new Date());
-		t.commit();
+		resultSink.add(t);
+	}
+
+	/**
+	 * Resolves the unit tests of all test methods in this run up front, using the
+	 * unit test index of the suite (which is loaded with a single query), so the
+	 * test events below don't need to look up their unit test one by one.
+	 */
+	private void preloadUnitTests(Description description) {
+		if (description != null)
+			collectUnitTests(description);
+	}
+
+	private void collectUnitTests(Description description) {
+		if (description.isTest())
+			unitTests.put(description, getUnitTestIndex().get(getTestName(description), false));
+
+		for (Description child : description.getChildren())
+			collectUnitTests(child);
 	}
 
 	private UnitTest getUnitTest(Description description) {
-		return TestManager.instance().getJUnitTest(context, testSuite, description);
+		return unitTests.computeIfAbsent(description, d -> getUnitTestIndex().get(getTestName(d), false));
+	}
+
+	private synchronized UnitTestIndex getUnitTestIndex() {
+		if (unitTestIndex == null)
+			unitTestIndex = UnitTestIndex.load(context, testSuite);
+
+		return unitTestIndex;
+	}
+
+	private static String getTestName(Description description) {
+		return description.getClassName() + "/" + description.getMethodName();
 	}
 
 	@Override
@@ -58,63 +115,67 @@ public class UnitTestRunListener extends RunListener {
 		LOG.info("Finished test " + description.getClassName() + "." + description.getMethodName());
 
 		UnitTest t = getUnitTest(description);
+		Optional<JUnitTestTracker.Tracking> tracking = JUnitTestTracker.finish(description);
 
 		if (t.getResult() == ENUM_UnitTestResult._1_Running) {
 			t.setResult(ENUM_UnitTestResult._3_Success);
 			t.setResultMessage("JUnit test completed successfully");
-			t.setReadableTime(getReadableTime(description, t));
+			t.setReadableTime(getReadableTime(tracking, t));
 
-			testSuite.setTestPassedCount(testSuite.getTestPassedCount() + 1);
-			testSuite.commit();
+			passedCount.incrementAndGet();
 		}
 
-		t.setLastStep(TestManager.instance().getLastReportedStep());
-		t.commit();
+		t.setLastStep(tracking.map(JUnitTestTracker.Tracking::getLastStep).orElse(null));
+		resultSink.add(t);
 	}
 
 	@Override
 	public void testFailure(Failure failure) throws Exception {
 		UnitTest t = getUnitTest(failure.getDescription());
+		Optional<JUnitTestTracker.Tracking> tracking = JUnitTestTracker.get(failure.getDescription());
+		String lastStep = tracking.map(JUnitTestTracker.Tracking::getLastStep).orElse(null);
 
 		/**
 		 * Test itself failed
 		 */
-		LOG.error("Failed test (at step '" + TestManager.instance().getLastReportedStep() + "') "
+		LOG.error("Failed test (at step '" + lastStep + "') "
 				+ failure.getDescription().getClassName() + "." + failure.getDescription().getMethodName() + " : "
 				+ failure.getMessage(), failure.getException());
 
-		testSuite.setTestFailedCount(testSuite.getTestFailedCount() + 1);
-		testSuite.commit();
+		failedCount.incrementAndGet();
 
 		t.setResult(ENUM_UnitTestResult._2_Failed);
 		t.setResultMessage(getFailureMessage(failure));
 		t.setStackTrace(failure.getTrace());
-		t.setReadableTime(getReadableTime(failure.getDescription(), t));
-		t.setLastStep(TestManager.instance().getLastReportedStep());
+		t.setReadableTime(getReadableTime(tracking, t));
+		t.setLastStep(lastStep);
 		t.setLastRun(new Date());
-		t.commit();
+		resultSink.add(t);
 	}
 
 	private String getFailureMessage(Failure failure) {
-		String message = String.format("JUnit test failed at %s", findProperExceptionLine(failure.getTrace()));
-		return failure.getMessage() != null ? message + ": " + failure.getMessage() : message;
+		return getFailureMessage(failure.getTrace(), failure.getMessage());
 	}
 
-	private String getReadableTime(Description description, UnitTest t) throws Exception {
-		long delta = getUnitTestInnerTime(description, t);
-		return TestManager.formatAsReadableTime(delta);
+	static String getFailureMessage(String trace, String failureMessage) {
+		String message = String.format("JUnit test failed at %s", findProperExceptionLine(trace));
+		return failureMessage != null ? message + ": " + failureMessage : message;
 	}
 
-	private long getUnitTestInnerTime(Description description, UnitTest t) throws IllegalAccessException,
-			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
-		long delta = System.currentTimeMillis() - t.getLastRun().getTime();
+	/**
+	 * Uses the time tracked for the test, which is the time the test measured
+	 * itself when it extends {@link AbstractUnitTest}. Falls back to the time
+	 * since the test was last started for failures outside of a test method.
+	 */
+	private String getReadableTime(Optional<JUnitTestTracker.Tracking> tracking, UnitTest t) {
+		if (tracking.isPresent())
+			return TestManager.formatNanosAsReadableTime(tracking.get().getRunTime());
 
-		if (AbstractUnitTest.class.isAssignableFrom(description.getTestClass()))
-			delta = (Long) description.getTestClass().getMethod("getTestRunTime").invoke(null);
-		return delta;
+		long delta = t.getLastRun() == null ? 0L : System.currentTimeMillis() - t.getLastRun().getTime();
+		return TestManager.formatAsReadableTime(delta);
 	}
 
-	private String findProperExceptionLine(String trace) {
+	private static String findProperExceptionLine(String trace) {
 		String[] lines = trace.split("\n");
 
 		if (lines.length > 2) {
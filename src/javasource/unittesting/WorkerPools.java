@@ -0,0 +1,52 @@
+package unittesting;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.mendix.logging.ILogNode;
+
+/**
+ * Creates the executors used for parallel test execution. Callers bound the
+ * amount of concurrent work themselves by the number of tasks they submit, so
+ * the same pools can be backed by virtual threads when configured.
+ */
+public final class WorkerPools {
+    private static final ILogNode LOG = ConfigurationManager.LOG;
+
+    private WorkerPools() {
+    }
+
+    public static ExecutorService newPool(int workers, String threadPrefix) {
+        if (ConfigurationManager.useVirtualThreads()) {
+            try {
+                // Looked up reflectively so the module still compiles and runs on Java 17
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                LOG.debug("Using virtual threads for " + threadPrefix);
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOG.warn("Virtual threads are not supported on this JVM, falling back to platform threads");
+            }
+        }
+
+        return Executors.newFixedThreadPool(Math.max(1, workers), new WorkerThreadFactory(threadPrefix));
+    }
+
+    static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+
+        WorkerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
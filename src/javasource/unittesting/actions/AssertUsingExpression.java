@@ -12,6 +12,7 @@ package unittesting.actions;
 import com.mendix.systemwideinterfaces.core.IContext;
 import com.mendix.systemwideinterfaces.core.IMendixObject;
 import unittesting.TestExecutionContext;
+import unittesting.TestExecutionContextRegistry;
 import unittesting.TestManager;
 import unittesting.UnitTestContextManager;
 import unittesting.activities.AssertActivity;
@@ -46,7 +47,7 @@ public class AssertUsingExpression extends UserAction<IMendixObject>
 	public IMendixObject executeAction() throws Exception
 	{
 		// BEGIN USER CODE
-		TestExecutionContext executionContext = TestManager.instance().executionContext();
+		TestExecutionContext executionContext = TestExecutionContextRegistry.current();
 		AssertActivity assertActivity = executionContext.collectAssertion(name, expression, failureMessage);
 
 		UnitTestContext unitTestContext = executionContext.getUnitTestContext();
@@ -9,7 +9,7 @@
 
 package unittesting.actions;
 
-import unittesting.TestManager;
+import unittesting.TestExecutionContextRegistry;
 import com.mendix.systemwideinterfaces.core.IContext;
 import com.mendix.systemwideinterfaces.core.UserAction;
 
@@ -30,7 +30,7 @@ public class ReportStepJava extends UserAction<java.lang.Boolean>
 	public java.lang.Boolean executeAction() throws Exception
 	{
 		// BEGIN USER CODE
-		TestManager.instance().executionContext().collectStep(message);
+		TestExecutionContextRegistry.current().collectStep(message);
 		return true;
 		// END USER CODE
 	}
@@ -10,6 +10,7 @@
 package unittesting.actions;
 
 import unittesting.TestExecutionContext;
+import unittesting.TestExecutionContextRegistry;
 import unittesting.TestManager;
 import com.mendix.systemwideinterfaces.core.IContext;
 import com.mendix.systemwideinterfaces.core.UserAction;
@@ -31,7 +32,7 @@ public class ThrowAssertionFailed extends UserAction<java.lang.Boolean>
 	public java.lang.Boolean executeAction() throws Exception
 	{
 		// BEGIN USER CODE
-		TestExecutionContext executionContext = TestManager.instance().executionContext();
+		TestExecutionContext executionContext = TestExecutionContextRegistry.current();
 		executionContext.collectAssertion(null, false, message);
 
 		throw new TestManager.AssertionException(message);